@@ -2,6 +2,9 @@ package com.pengyifan.brat;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.Objects;
 
 /**
@@ -98,5 +101,56 @@ public abstract class BratAnnotation {
    *
    * @return the string in the brat standoff format
    */
-  public abstract String toBratString();
+  public String toBratString() {
+    StringBuilder sb = new StringBuilder();
+    try {
+      appendTo(sb);
+    } catch (IOException e) {
+      // StringBuilder does not throw IOException
+      throw new AssertionError(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Appends this annotation in the brat standoff format, without the line separator. Fields and
+   * offsets are written directly to the appendable.
+   *
+   * @param out the appendable to write to
+   * @throws IOException If an I/O error occurs
+   * @since 1.3.0
+   */
+  public abstract void appendTo(Appendable out)
+      throws IOException;
+
+  /**
+   * Appends the decimal digits of the integer without creating a string. The digits are passed
+   * to the appendable in one call.
+   */
+  static void appendInt(Appendable out, int value)
+      throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+      return;
+    }
+    if (value == Integer.MIN_VALUE) {
+      out.append(Integer.toString(value));
+      return;
+    }
+    char[] digits = new char[11];
+    int start = digits.length;
+    int v = Math.abs(value);
+    do {
+      digits[--start] = (char) ('0' + v % 10);
+      v /= 10;
+    } while (v > 0);
+    if (value < 0) {
+      digits[--start] = '-';
+    }
+    if (out instanceof Writer) {
+      ((Writer) out).write(digits, start, digits.length - start);
+    } else {
+      out.append(CharBuffer.wrap(digits, start, digits.length - start));
+    }
+  }
 }
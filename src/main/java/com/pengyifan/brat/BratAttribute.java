@@ -4,6 +4,7 @@ import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
 import java.util.Objects;
 import java.util.Set;
 
@@ -54,20 +55,33 @@ public class BratAttribute extends BratAnnotation {
    * @return the attribute annotation represented by the argument.
    */
   public static BratAttribute parseAttribute(String s) {
-    String toks[] = s.split("\t");
-    checkBratFormatArgument(toks.length == 2, "Illegal format: %s", s);
-
-    BratAttribute att = new BratAttribute();
-    att.setId(toks[0]);
+    return parseAttribute(s, null);
+  }
 
-    toks = toks[1].split(" ");
-    checkBratFormatArgument(toks.length >= 2, "Illegal format: %s", s);
+  /**
+   * Parses the character sequence as a attribute annotation.
+   * 
+   * @param s a character sequence containing the attribute annotation to be parsed
+   * @param symbols the symbol table to intern the type and flags with, or null
+   * @return the attribute annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratAttribute parseAttribute(CharSequence s, BratSymbolTable symbols) {
+    BratLineScanner scanner = new BratLineScanner(s, symbols);
+    scanner.nextColumn(false);
+    String id = scanner.rest();
 
-    att.setType(toks[0]);
-    att.setRefId(toks[1]);
-    for (int i = 2; i < toks.length; i++) {
-      att.addAttribute(toks[i]);
+    BratAttribute att = new BratAttribute();
+    checkBratFormatArgument(scanner.nextColumn(false), "Illegal format: %s", s);
+    att.setType(scanner.nextRequiredSymbol(' '));
+    checkBratFormatArgument(scanner.hasNext(), "Illegal format: %s", s);
+    att.setRefId(scanner.next(' '));
+    while (scanner.hasNext()) {
+      att.addAttribute(scanner.nextSymbol(' '));
     }
+    checkBratFormatArgument(!scanner.nextColumn(false), "Illegal format: %s", s);
+
+    att.setId(id);
     return att;
   }
 
@@ -146,17 +160,17 @@ public class BratAttribute extends BratAnnotation {
    * @return
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // refid
-    sb.append(' ').append(getRefId());
+    out.append(' ').append(getRefId());
     // flags
     for (String attribute : attributes) {
-      sb.append(' ').append(attribute);
+      out.append(' ').append(attribute);
     }
-    return sb.toString();
   }
 
   /**
@@ -1,6 +1,8 @@
 package com.pengyifan.brat;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.SortedMap;
 
@@ -71,6 +73,16 @@ public abstract class BratBaseRelation extends BratAnnotation {
     return arguments;
   }
 
+  /**
+   * Appends " ROLE:ID" for every argument, in the order of roles.
+   */
+  void appendArguments(Appendable out)
+      throws IOException {
+    for (Entry<String, String> entry : arguments.entrySet()) {
+      out.append(' ').append(entry.getKey()).append(':').append(entry.getValue());
+    }
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(super.hashCode(), arguments);
@@ -3,22 +3,89 @@ package com.pengyifan.brat;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
 import com.google.common.collect.Maps;
 
+/**
+ * A brat document holds the text and the standoff annotations of one document.
+ * <p>
+ * Annotations are indexed by their IDs when they are added, so that lookups and
+ * duplicate checks take constant time. The ID of an annotation should therefore
+ * not be changed while the annotation belongs to a document.
+ * <p>
+ * Annotations are also stored partitioned by kind. Methods such as {@link #getEntities()}
+ * return live, unmodifiable views in insertion order, so the document must not be modified
+ * while iterating over them.
+ * <p>
+ * The document further maintains a reverse index from an ID to the annotations referring to it
+ * (event triggers and arguments, relation arguments, equivalence members, and the referred IDs
+ * of attributes and notes). The references of an annotation should not be changed while the
+ * annotation belongs to a document either, unless {@link #reindex()} is called afterwards.
+ *
+ * @since 1.0.0
+ * @author "Yifan Peng"
+ */
 public class BratDocument {
 
   private String text;
   private String id;
   private List<BratAnnotation> annotations;
+  private List<BratAnnotation> unmodifiableAnnotations;
+  /**
+   * ID:annotation. Equivalence relations are not indexed because they all share the ID "*".
+   */
+  private Map<String, BratAnnotation> idIndex;
+  /**
+   * referred ID:referring annotations
+   */
+  private Map<String, List<BratAnnotation>> refIndex;
+  /**
+   * Clusters of equivalence relation members, built on first use and rebuilt after an
+   * equivalence relation has been removed.
+   */
+  private BratEquivClusters equivClusters;
+  private boolean sharedEntityText;
+
+  private List<BratEntity> entities;
+  private List<BratRelation> relations;
+  private List<BratEvent> events;
+  private List<BratAttribute> attributes;
+  private List<BratEquivRelation> equivRelations;
+  private List<BratNote> notes;
+
+  private List<BratEntity> unmodifiableEntities;
+  private List<BratRelation> unmodifiableRelations;
+  private List<BratEvent> unmodifiableEvents;
+  private List<BratAttribute> unmodifiableAttributes;
+  private List<BratEquivRelation> unmodifiableEquivRelations;
+  private List<BratNote> unmodifiableNotes;
 
   public BratDocument() {
-    annotations = Lists.newLinkedList();
+    annotations = Lists.newArrayList();
+    unmodifiableAnnotations = Collections.unmodifiableList(annotations);
+    idIndex = Maps.newHashMap();
+    refIndex = Maps.newHashMap();
+
+    entities = Lists.newArrayList();
+    relations = Lists.newArrayList();
+    events = Lists.newArrayList();
+    attributes = Lists.newArrayList();
+    equivRelations = Lists.newArrayList();
+    notes = Lists.newArrayList();
+
+    unmodifiableEntities = Collections.unmodifiableList(entities);
+    unmodifiableRelations = Collections.unmodifiableList(relations);
+    unmodifiableEvents = Collections.unmodifiableList(events);
+    unmodifiableAttributes = Collections.unmodifiableList(attributes);
+    unmodifiableEquivRelations = Collections.unmodifiableList(equivRelations);
+    unmodifiableNotes = Collections.unmodifiableList(notes);
   }
 
   public BratDocument(BratDocument doc) {
@@ -34,6 +101,38 @@ public class BratDocument {
     this.text = text;
   }
 
+  /**
+   * Sets whether entities share the text of this document. If true, the entities of this
+   * document, and entities added later, drop their stored text when it matches the document
+   * text, and take the text from the document text instead (see
+   * {@link BratEntity#getTextView()}). This saves one string per entity. Entities keep their
+   * stored text if this document has no text, if their spans lie outside the text, or if their
+   * text does not match it.
+   * <p>
+   * Entities keep sharing the text they were given even if the text of this document is changed
+   * or sharing is turned off later. An entity stops sharing, and stores a copy of its text, when
+   * a span is added to it.
+   *
+   * @param sharedEntityText true if entities share the text of this document
+   * @since 1.3.0
+   */
+  public void setSharedEntityText(boolean sharedEntityText) {
+    this.sharedEntityText = sharedEntityText;
+    if (sharedEntityText) {
+      entities.forEach(entity -> entity.shareText(text));
+    }
+  }
+
+  /**
+   * Returns true if entities share the text of this document.
+   *
+   * @return true if entities share the text of this document
+   * @since 1.3.0
+   */
+  public boolean isSharedEntityText() {
+    return sharedEntityText;
+  }
+
   /**
    * Returns text of the original documents input
    * 
@@ -49,9 +148,11 @@ public class BratDocument {
   }
 
   private Optional<BratAnnotation> get(String id) {
-    return annotations.stream()
-        .filter(a -> a.getId().equals(id))
-        .findAny();
+    BratAnnotation ann = idIndex.get(id);
+    if (ann == null && BratEquivRelation.ID.equals(id) && !equivRelations.isEmpty()) {
+      ann = equivRelations.get(0);
+    }
+    return Optional.ofNullable(ann);
   }
 
   public BratAnnotation getAnnotation(String id) {
@@ -80,45 +181,337 @@ public class BratDocument {
 
   public void addAnnotation(BratAnnotation ann) {
     if (!(ann instanceof BratEquivRelation)) {
-      checkArgument(!containsId(ann.getId()), "already have %s", ann.getId());
+      BratAnnotation old = idIndex.putIfAbsent(ann.getId(), ann);
+      checkArgument(old == null, "already have %s", ann.getId());
     }
     annotations.add(ann);
+    partition(ann).add(ann);
+    if (sharedEntityText && ann instanceof BratEntity) {
+      ((BratEntity) ann).shareText(text);
+    }
+    if (ann instanceof BratEquivRelation && equivClusters != null) {
+      equivClusters.add((BratEquivRelation) ann);
+    }
+    indexReferences(ann);
+  }
+
+  private void indexReferences(BratAnnotation ann) {
+    forEachReference(ann, refId -> {
+      List<BratAnnotation> referrers = refIndex.computeIfAbsent(refId, k -> Lists.newArrayList());
+      if (referrers.isEmpty() || referrers.get(referrers.size() - 1) != ann) {
+        referrers.add(ann);
+      }
+    });
+  }
+
+  /**
+   * Passes the IDs of the annotations that the specified annotation refers to to the action.
+   */
+  private static void forEachReference(BratAnnotation ann, Consumer<String> action) {
+    if (ann instanceof BratEvent) {
+      BratEvent event = (BratEvent) ann;
+      if (event.getTriggerId() != null) {
+        action.accept(event.getTriggerId());
+      }
+      event.getArguments().values().forEach(action);
+    } else if (ann instanceof BratRelation) {
+      ((BratRelation) ann).getArguments().values().forEach(action);
+    } else if (ann instanceof BratEquivRelation) {
+      ((BratEquivRelation) ann).getArgIds().forEach(action);
+    } else if (ann instanceof BratAttribute) {
+      String refId = ((BratAttribute) ann).getRefId();
+      if (refId != null) {
+        action.accept(refId);
+      }
+    } else if (ann instanceof BratNote) {
+      String refId = ((BratNote) ann).getRefId();
+      if (refId != null) {
+        action.accept(refId);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<BratAnnotation> partition(BratAnnotation ann) {
+    List<? extends BratAnnotation> list;
+    if (ann instanceof BratEntity) {
+      list = entities;
+    } else if (ann instanceof BratRelation) {
+      list = relations;
+    } else if (ann instanceof BratEvent) {
+      list = events;
+    } else if (ann instanceof BratAttribute) {
+      list = attributes;
+    } else if (ann instanceof BratEquivRelation) {
+      list = equivRelations;
+    } else if (ann instanceof BratNote) {
+      list = notes;
+    } else {
+      throw new IllegalArgumentException("Unknown annotation: " + ann);
+    }
+    return (List<BratAnnotation>) list;
+  }
+
+  private static boolean removeIdentical(List<BratAnnotation> list, BratAnnotation ann) {
+    for (Iterator<BratAnnotation> itr = list.iterator(); itr.hasNext(); ) {
+      if (itr.next() == ann) {
+        itr.remove();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes the specified annotation from this document.
+   *
+   * @param ann annotation to be removed
+   * @return true if this document contained the annotation
+   */
+  public boolean removeAnnotation(BratAnnotation ann) {
+    if (!removeIdentical(partition(ann), ann)) {
+      return false;
+    }
+    removeIdentical(annotations, ann);
+    unindex(ann);
+    return true;
+  }
+
+  /**
+   * Removes the specified annotation and, transitively, all annotations referring to it from
+   * this document. For example, removing an entity also removes its attributes and notes, the
+   * events and relations having it as an argument, and the equivalence relations containing it.
+   *
+   * @param ann annotation to be removed
+   * @return the removed annotations, in the order they were added
+   */
+  public List<BratAnnotation> removeAnnotationAndReferrers(BratAnnotation ann) {
+    if (!partition(ann).stream().anyMatch(a -> a == ann)) {
+      return Collections.emptyList();
+    }
+    Set<BratAnnotation> toRemove = Sets.newIdentityHashSet();
+    Deque<BratAnnotation> queue = new ArrayDeque<>();
+    toRemove.add(ann);
+    queue.add(ann);
+    while (!queue.isEmpty()) {
+      BratAnnotation next = queue.poll();
+      if (next instanceof BratEquivRelation) {
+        continue;
+      }
+      for (BratAnnotation referrer : refIndex.getOrDefault(next.getId(),
+          Collections.emptyList())) {
+        if (toRemove.add(referrer)) {
+          queue.add(referrer);
+        }
+      }
+    }
+
+    List<BratAnnotation> removed = Lists.newArrayList();
+    for (BratAnnotation a : annotations) {
+      if (toRemove.contains(a)) {
+        removed.add(a);
+      }
+    }
+    annotations.removeIf(toRemove::contains);
+    entities.removeIf(toRemove::contains);
+    relations.removeIf(toRemove::contains);
+    events.removeIf(toRemove::contains);
+    attributes.removeIf(toRemove::contains);
+    equivRelations.removeIf(toRemove::contains);
+    notes.removeIf(toRemove::contains);
+    for (BratAnnotation a : removed) {
+      unindex(a);
+    }
+    return removed;
+  }
+
+  private void unindex(BratAnnotation ann) {
+    if (!(ann instanceof BratEquivRelation)) {
+      idIndex.remove(ann.getId(), ann);
+    } else {
+      equivClusters = null;
+    }
+    forEachReference(ann, refId -> {
+      List<BratAnnotation> referrers = refIndex.get(refId);
+      if (referrers != null) {
+        removeIdentical(referrers, ann);
+        if (referrers.isEmpty()) {
+          refIndex.remove(refId);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns an unmodifiable list of the annotations referring to the specified ID, in the order
+   * they were added.
+   *
+   * @param id the referred ID
+   * @return the annotations referring to the ID
+   */
+  public List<BratAnnotation> getReferrers(String id) {
+    List<BratAnnotation> referrers = refIndex.get(id);
+    return referrers == null
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(referrers);
+  }
+
+  /**
+   * Sorts all annotations, and the annotations of every kind, according to the comparator. The
+   * sort is stable.
+   *
+   * @param comparator the comparator to determine the order of annotations
+   * @since 1.3.0
+   */
+  public void sort(Comparator<? super BratAnnotation> comparator) {
+    annotations.sort(comparator);
+    entities.sort(comparator);
+    relations.sort(comparator);
+    events.sort(comparator);
+    attributes.sort(comparator);
+    equivRelations.sort(comparator);
+    notes.sort(comparator);
   }
 
+  /**
+   * Rebuilds the ID index and the reverse index of this document. Call it after the IDs or the
+   * references of annotations in this document have been changed.
+   *
+   * @throws IllegalArgumentException if two annotations have the same ID
+   * @since 1.3.0
+   */
+  public void reindex() {
+    idIndex.clear();
+    refIndex.clear();
+    equivClusters = null;
+    for (BratAnnotation ann : annotations) {
+      if (!(ann instanceof BratEquivRelation)) {
+        BratAnnotation old = idIndex.putIfAbsent(ann.getId(), ann);
+        checkArgument(old == null, "already have %s", ann.getId());
+      }
+      indexReferences(ann);
+    }
+  }
+
+  /**
+   * Returns an unmodifiable view of all annotations, in the order they were added.
+   *
+   * @return all annotations
+   */
   public List<BratAnnotation> getAnnotations() {
-    return annotations;
+    return unmodifiableAnnotations;
   }
 
+  /**
+   * Returns an unmodifiable view of all events.
+   *
+   * @return all events
+   */
   public List<BratEvent> getEvents() {
-    return getAnnotations().stream().filter(ann -> ann instanceof BratEvent)
-        .map(ann -> (BratEvent) ann).collect(Collectors.toList());
+    return unmodifiableEvents;
   }
 
+  /**
+   * Returns an unmodifiable view of all entities.
+   *
+   * @return all entities
+   */
   public List<BratEntity> getEntities() {
-    return getAnnotations().stream().filter(ann -> ann instanceof BratEntity)
-        .map(ann -> (BratEntity) ann).collect(Collectors.toList());
+    return unmodifiableEntities;
   }
 
+  /**
+   * Returns an unmodifiable view of all relations.
+   *
+   * @return all relations
+   */
   public List<BratRelation> getRelations() {
-    return getAnnotations().stream().filter(ann -> ann instanceof BratRelation)
-        .map(ann -> (BratRelation) ann).collect(Collectors.toList());
+    return unmodifiableRelations;
   }
 
+  /**
+   * Returns an unmodifiable view of all attributes.
+   *
+   * @return all attributes
+   */
   public List<BratAttribute> getAttributes() {
-    return getAnnotations().stream()
-        .filter(ann -> ann instanceof BratAttribute)
-        .map(ann -> (BratAttribute) ann).collect(Collectors.toList());
+    return unmodifiableAttributes;
   }
 
+  /**
+   * Returns an unmodifiable view of all equivalence relations.
+   *
+   * @return all equivalence relations
+   */
   public List<BratEquivRelation> getEquivRelations() {
-    return getAnnotations().stream()
-        .filter(ann -> ann instanceof BratEquivRelation)
-        .map(ann -> (BratEquivRelation) ann).collect(Collectors.toList());
+    return unmodifiableEquivRelations;
   }
 
+  private BratEquivClusters equivClusters() {
+    if (equivClusters == null) {
+      equivClusters = new BratEquivClusters();
+      equivRelations.forEach(equivClusters::add);
+    }
+    return equivClusters;
+  }
+
+  /**
+   * Returns true if the two IDs are the same, or are linked directly or transitively by
+   * equivalence relations.
+   *
+   * @param id1 an annotation ID
+   * @param id2 another annotation ID
+   * @return true if the two IDs are equivalent
+   * @since 1.3.0
+   */
+  public boolean isEquivalent(String id1, String id2) {
+    return equivClusters().isEquivalent(id1, id2);
+  }
+
+  /**
+   * Returns the canonical ID of the equivalence cluster containing the ID: the smallest ID of
+   * the cluster in string order. Returns the ID itself if it is not a member of any equivalence
+   * relation.
+   *
+   * @param id an annotation ID
+   * @return the canonical ID of the cluster
+   * @since 1.3.0
+   */
+  public String getCanonicalId(String id) {
+    return equivClusters().canonicalId(id);
+  }
+
+  /**
+   * Returns the sorted IDs of the equivalence cluster containing the ID, or the ID itself if it
+   * is not a member of any equivalence relation.
+   *
+   * @param id an annotation ID
+   * @return the IDs equivalent to the ID
+   * @since 1.3.0
+   */
+  public Set<String> getEquivalenceCluster(String id) {
+    return equivClusters().cluster(id);
+  }
+
+  /**
+   * Returns the transitive closure of all equivalence relations: overlapping equivalence
+   * relations are collapsed into one cluster. Clusters are in the order their first member
+   * was added, and the IDs in a cluster are sorted.
+   *
+   * @return the equivalence clusters
+   * @since 1.3.0
+   */
+  public List<Set<String>> getEquivalenceClusters() {
+    return equivClusters().clusters();
+  }
+
+  /**
+   * Returns an unmodifiable view of all notes.
+   *
+   * @return all notes
+   */
   public List<BratNote> getNotes() {
-    return getAnnotations().stream().filter(ann -> ann instanceof BratNote)
-        .map(ann -> (BratNote) ann).collect(Collectors.toList());
+    return unmodifiableNotes;
   }
 
   /**
@@ -127,15 +520,15 @@ public class BratDocument {
    * @return list of BratNote
    */
   public List<BratNote> getNotes(String refId) {
-    return getNotes().stream()
-        .filter(n -> n.getRefId().equals(refId))
-        .collect(Collectors.toList());
+    return getReferrers(refId).stream()
+        .filter(ann -> ann instanceof BratNote)
+        .map(ann -> (BratNote) ann).collect(Collectors.toList());
   }
 
   public List<BratAttribute> getAttributes(String refId) {
-    return getAttributes().stream()
-        .filter(a -> a.getRefId().equals(refId))
-        .collect(Collectors.toList());
+    return getReferrers(refId).stream()
+        .filter(ann -> ann instanceof BratAttribute)
+        .map(ann -> (BratAttribute) ann).collect(Collectors.toList());
   }
 
   public void setDocId(String id) {
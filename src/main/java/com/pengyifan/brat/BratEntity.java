@@ -2,15 +2,14 @@ package com.pengyifan.brat;
 
 import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.StringJoiner;
-import java.util.stream.Collectors;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.*;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
@@ -57,38 +56,65 @@ public class BratEntity extends BratAnnotation {
    * @return the entity annotation represented by the argument.
    */
   public static BratEntity parseEntity(String s) {
-    String toks[] = s.split("\t");
-    checkBratFormatArgument(toks.length == 3, "Illegal format: %s", s);
+    return parseEntity(s, null);
+  }
+
+  /**
+   * Parses the character sequence as an entity annotation.
+   * 
+   * @param s a character sequence containing the entity annotation to be parsed
+   * @param symbols the symbol table to intern the type with, or null
+   * @return the entity annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratEntity parseEntity(CharSequence s, BratSymbolTable symbols) {
+    BratLineScanner scanner = new BratLineScanner(s, symbols);
+    scanner.nextColumn(false);
+    String id = scanner.rest();
 
     BratEntity entity = new BratEntity();
-    entity.setId(toks[0]);
-    entity.setText(toks[2]);
+    checkBratFormatArgument(scanner.nextColumn(false), "Illegal format: %s", s);
+    entity.setType(scanner.nextRequiredSymbol(' '));
+    checkBratFormatArgument(scanner.hasNext(), "Illegal format: %s", s);
+    do {
+      entity.addSpan(scanner.nextInt(' '), scanner.nextInt(';'));
+    } while (scanner.hasNext());
+    checkBratFormatArgument(entity.getSpanCount() > 0, "Illegal format: %s", s);
 
-    int index = toks[1].indexOf(' ');
-    checkBratFormatArgument(index != -1, "Illegal format: %s", s);
-    entity.setType(toks[1].substring(0, index));
+    checkBratFormatArgument(scanner.nextColumn(false), "Illegal format: %s", s);
+    entity.setText(scanner.rest());
+    checkBratFormatArgument(!scanner.nextColumn(false), "Illegal format: %s", s);
 
-    for (String loc : toks[1].substring(index + 1).split(";")) {
-      int space = loc.indexOf(' ');
-      checkBratFormatArgument(space != -1, "Illegal format: %s", s);
-      entity.addSpan(
-          Integer.parseInt(loc.substring(0, space)),
-          Integer.parseInt(loc.substring(space + 1)));
-    }
+    entity.setId(id);
     return entity;
   }
 
-  private RangeSet<Integer> rangeSet;
+  private static final int[] NO_SPANS = new int[0];
+
+  /**
+   * Sorted, disconnected spans encoded as [start0, end0, start1, end1, ...]. The array is never
+   * modified in place, so it can be shared between copies.
+   */
+  private int[] spans;
+  /**
+   * Stored text, or null if the text is taken from the source.
+   */
   private String text;
+  /**
+   * Text of the document the spans refer to, or null. Only set while the spans are unchanged
+   * since the text was shared.
+   */
+  private String source;
 
   public BratEntity() {
-    rangeSet = TreeRangeSet.create();
+    spans = NO_SPANS;
   }
 
   public BratEntity(BratEntity ent) {
     super(ent);
     text = ent.text;
-    rangeSet = TreeRangeSet.create(ent.rangeSet);
+    source = ent.source;
+    spans = ent.spans;
   }
   
   /**
@@ -102,9 +128,11 @@ public class BratEntity extends BratAnnotation {
     newEnt.setId(ent.getId());
     newEnt.setType(ent.getType());
     newEnt.setText(ent.getText());
-    for(Range<Integer> span: ent.getSpans().asRanges()) {
-      newEnt.addSpan(offset + span.lowerEndpoint(), offset + span.upperEndpoint());
+    int[] newSpans = new int[ent.spans.length];
+    for (int i = 0; i < newSpans.length; i++) {
+      newSpans[i] = ent.spans[i] + offset;
     }
+    newEnt.spans = newSpans;
     return newEnt;
   }
 
@@ -115,7 +143,33 @@ public class BratEntity extends BratAnnotation {
    * @param end the index of the first character after the annotated span
    */
   public void addSpan(int start, int end) {
-    rangeSet.add(Range.closedOpen(start, end));
+    checkArgument(start <= end, "Invalid span: %s %s", start, end);
+    if (start == end) {
+      return;
+    }
+    unshareText();
+    int n = getSpanCount();
+    // first span connected to or after [start, end)
+    int first = 0;
+    while (first < n && spans[2 * first + 1] < start) {
+      first++;
+    }
+    // last span connected to or before [start, end)
+    int last = n - 1;
+    while (last >= 0 && spans[2 * last] > end) {
+      last--;
+    }
+    if (first <= last) {
+      start = Math.min(start, spans[2 * first]);
+      end = Math.max(end, spans[2 * last + 1]);
+    }
+    // spans first..last are replaced by [start, end)
+    int[] newSpans = new int[spans.length - 2 * (last - first + 1) + 2];
+    System.arraycopy(spans, 0, newSpans, 0, 2 * first);
+    newSpans[2 * first] = start;
+    newSpans[2 * first + 1] = end;
+    System.arraycopy(spans, 2 * (last + 1), newSpans, 2 * first + 2, 2 * (n - last - 1));
+    spans = newSpans;
   }
 
   /**
@@ -138,7 +192,8 @@ public class BratEntity extends BratAnnotation {
    * @return the beginning character offset of the annotation
    */
   public int beginPosition() {
-    return rangeSet.span().lowerEndpoint();
+    checkSpans();
+    return spans[0];
   }
 
   /**
@@ -147,7 +202,45 @@ public class BratEntity extends BratAnnotation {
    * @return the ending character offset of the annotation
    */
   public int endPosition() {
-    return rangeSet.span().upperEndpoint();
+    checkSpans();
+    return spans[spans.length - 1];
+  }
+
+  private void checkSpans() {
+    if (spans.length == 0) {
+      throw new NoSuchElementException("the entity has no span");
+    }
+  }
+
+  /**
+   * Returns the number of discontinuous spans.
+   *
+   * @return the number of discontinuous spans
+   */
+  public int getSpanCount() {
+    return spans.length / 2;
+  }
+
+  /**
+   * Returns the beginning character offset of the index-th span.
+   *
+   * @param index index of the span
+   * @return the beginning character offset of the span
+   */
+  public int getSpanStart(int index) {
+    checkElementIndex(index, getSpanCount());
+    return spans[2 * index];
+  }
+
+  /**
+   * Returns the ending character offset of the index-th span.
+   *
+   * @param index index of the span
+   * @return the ending character offset of the span
+   */
+  public int getSpanEnd(int index) {
+    checkElementIndex(index, getSpanCount());
+    return spans[2 * index + 1];
   }
 
   @Override
@@ -160,31 +253,160 @@ public class BratEntity extends BratAnnotation {
     }
     BratEntity rhs = (BratEntity) o;
     return super.equals(o)
-        && Objects.equals(text, rhs.text)
-        && Objects.equals(rangeSet, rhs.rangeSet);
+        && Arrays.equals(spans, rhs.spans)
+        && Objects.equals(getText(), rhs.getText());
   }
 
   /**
-   * Returns all discontinuous spans.
+   * Returns all discontinuous spans. The range set is created on each call and cannot be
+   * modified; use {@link #getSpanStart(int)} and {@link #getSpanEnd(int)} to avoid allocation.
    * 
    * @return all discontinuous spans
    */
   public RangeSet<Integer> getSpans() {
-    return rangeSet;
+    ImmutableRangeSet.Builder<Integer> builder = ImmutableRangeSet.builder();
+    for (int i = 0; i < spans.length; i += 2) {
+      builder.add(Range.closedOpen(spans[i], spans[i + 1]));
+    }
+    return builder.build();
   }
 
   /**
-   * Returns the text spanned by the annotation.
+   * Returns the text spanned by the annotation. If the entity shares the text of its document,
+   * the text is copied out of the document text on each call.
    * 
    * @return the text spanned by the annotation
    */
   public String getText() {
+    if (text == null && source != null) {
+      return getTextView().toString();
+    }
     return text;
   }
 
+  /**
+   * Returns the text spanned by the annotation without copying it. If the entity shares the text
+   * of its document, this is a view over the document text in which discontinuous spans are
+   * joined by a space. Otherwise it is the stored text.
+   *
+   * @return the text spanned by the annotation
+   * @since 1.3.0
+   */
+  public CharSequence getTextView() {
+    if (text == null && source != null) {
+      return new TextView(source, spans);
+    }
+    return text;
+  }
+
+  /**
+   * Drops the stored text and takes the text from the document text instead, if the spans lie in
+   * the document text and the stored text, if any, matches it.
+   */
+  void shareText(String documentText) {
+    if (documentText == null || spans.length == 0
+        || spans[spans.length - 1] > documentText.length()) {
+      return;
+    }
+    TextView view = new TextView(documentText, spans);
+    if (text == null || view.contentEquals(text)) {
+      text = null;
+      source = documentText;
+    }
+  }
+
+  /**
+   * Stores a copy of the shared text, so that the text stays the same when the spans change.
+   */
+  private void unshareText() {
+    if (source != null) {
+      text = getText();
+      source = null;
+    }
+  }
+
+  /**
+   * Read-only view of the spans of the document text, joined by a space.
+   */
+  private static final class TextView implements CharSequence {
+
+    private final String source;
+    private final int[] spans;
+    private final int length;
+
+    TextView(String source, int[] spans) {
+      this.source = source;
+      this.spans = spans;
+      int n = spans.length / 2 - 1;
+      for (int i = 0; i < spans.length; i += 2) {
+        n += spans[i + 1] - spans[i];
+      }
+      this.length = n;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      checkElementIndex(index, length);
+      for (int i = 0; i < spans.length; i += 2) {
+        int spanLength = spans[i + 1] - spans[i];
+        if (index < spanLength) {
+          return source.charAt(spans[i] + index);
+        }
+        if (index == spanLength) {
+          return ' ';
+        }
+        index -= spanLength + 1;
+      }
+      throw new AssertionError();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    boolean contentEquals(String s) {
+      if (s.length() != length) {
+        return false;
+      }
+      int k = 0;
+      for (int i = 0; i < spans.length; i += 2) {
+        if (i > 0 && s.charAt(k++) != ' ') {
+          return false;
+        }
+        int spanLength = spans[i + 1] - spans[i];
+        if (!s.regionMatches(k, source, spans[i], spanLength)) {
+          return false;
+        }
+        k += spanLength;
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      if (spans.length == 2) {
+        return source.substring(spans[0], spans[1]);
+      }
+      StringBuilder sb = new StringBuilder(length);
+      for (int i = 0; i < spans.length; i += 2) {
+        if (i > 0) {
+          sb.append(' ');
+        }
+        sb.append(source, spans[i], spans[i + 1]);
+      }
+      return sb.toString();
+    }
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), text, rangeSet);
+    return Objects.hash(super.hashCode(), getText(), Arrays.hashCode(spans));
   }
 
   @Override
@@ -210,19 +432,20 @@ public class BratEntity extends BratAnnotation {
    * @return
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // span
-    StringJoiner joiner = new StringJoiner(";");
-    for (Range<Integer> range : getSpans().asRanges()) {
-      joiner.add(range.lowerEndpoint() + " " + range.upperEndpoint());
+    for (int i = 0; i < spans.length; i += 2) {
+      out.append(i == 0 ? ' ' : ';');
+      appendInt(out, spans[i]);
+      out.append(' ');
+      appendInt(out, spans[i + 1]);
     }
-    sb.append(' ').append(joiner.toString());
     // text
-    sb.append('\t').append(getText());
-    return sb.toString();
+    out.append('\t').append(getTextView());
   }
 
   @Override
@@ -241,6 +464,6 @@ public class BratEntity extends BratAnnotation {
    * @return the total span of this annotation
    */
   public Range<Integer> totalSpan() {
-    return getSpans().span();
+    return Range.closedOpen(beginPosition(), endPosition());
   }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.pengyifan.brat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Union-find over the members of equivalence relations. Members linked directly or transitively
+ * by equivalence relations form one cluster. Finding the cluster of an ID takes near-constant
+ * amortized time (union by size and path halving).
+ * <p>
+ * The members of every cluster are also kept in a circular linked list, so that a cluster can be
+ * enumerated in time linear in its size.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+final class BratEquivClusters {
+
+  private final Map<String, Integer> index;
+  private String[] ids;
+  private int[] parent;
+  private int[] size;
+  /**
+   * next member in the same cluster
+   */
+  private int[] next;
+  /**
+   * smallest member of the cluster, valid for roots only
+   */
+  private String[] canonical;
+  private int count;
+
+  BratEquivClusters() {
+    index = Maps.newHashMap();
+    ids = new String[16];
+    parent = new int[16];
+    size = new int[16];
+    next = new int[16];
+    canonical = new String[16];
+  }
+
+  /**
+   * Links all members of the equivalence relation.
+   */
+  void add(BratEquivRelation relation) {
+    int first = -1;
+    for (String id : relation.getArgIds()) {
+      int i = indexOf(id);
+      if (first == -1) {
+        first = i;
+      } else {
+        union(first, i);
+      }
+    }
+  }
+
+  boolean isEquivalent(String id1, String id2) {
+    if (id1.equals(id2)) {
+      return true;
+    }
+    Integer i = index.get(id1);
+    Integer j = index.get(id2);
+    return i != null && j != null && find(i) == find(j);
+  }
+
+  /**
+   * Returns the smallest ID of the cluster, or the ID itself if it is not a member.
+   */
+  String canonicalId(String id) {
+    Integer i = index.get(id);
+    return i == null ? id : canonical[find(i)];
+  }
+
+  /**
+   * Returns the sorted members of the cluster, or the ID itself if it is not a member.
+   */
+  Set<String> cluster(String id) {
+    Integer i = index.get(id);
+    if (i == null) {
+      return Collections.singleton(id);
+    }
+    return members(i);
+  }
+
+  /**
+   * Returns all clusters, in the order their first member was added.
+   */
+  List<Set<String>> clusters() {
+    List<Set<String>> clusters = Lists.newArrayList();
+    boolean[] seen = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      int root = find(i);
+      if (!seen[root]) {
+        seen[root] = true;
+        clusters.add(members(i));
+      }
+    }
+    return clusters;
+  }
+
+  private Set<String> members(int i) {
+    Set<String> members = Sets.newTreeSet();
+    int j = i;
+    do {
+      members.add(ids[j]);
+      j = next[j];
+    } while (j != i);
+    return members;
+  }
+
+  private int indexOf(String id) {
+    Integer i = index.get(id);
+    if (i != null) {
+      return i;
+    }
+    if (count == ids.length) {
+      int capacity = count * 2;
+      ids = Arrays.copyOf(ids, capacity);
+      parent = Arrays.copyOf(parent, capacity);
+      size = Arrays.copyOf(size, capacity);
+      next = Arrays.copyOf(next, capacity);
+      canonical = Arrays.copyOf(canonical, capacity);
+    }
+    int j = count++;
+    index.put(id, j);
+    ids[j] = id;
+    parent[j] = j;
+    size[j] = 1;
+    next[j] = j;
+    canonical[j] = id;
+    return j;
+  }
+
+  private int find(int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private void union(int i, int j) {
+    int ri = find(i);
+    int rj = find(j);
+    if (ri == rj) {
+      return;
+    }
+    if (size[ri] < size[rj]) {
+      int t = ri;
+      ri = rj;
+      rj = t;
+    }
+    parent[rj] = ri;
+    size[ri] += size[rj];
+    if (canonical[rj].compareTo(canonical[ri]) < 0) {
+      canonical[ri] = canonical[rj];
+    }
+    // splice the two circular lists
+    int t = next[ri];
+    next[ri] = next[rj];
+    next[rj] = t;
+  }
+}
@@ -3,6 +3,7 @@ package com.pengyifan.brat;
 import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.io.IOException;
 import java.util.Objects;
 import java.util.Set;
 
@@ -48,34 +49,54 @@ public class BratEquivRelation extends BratAnnotation {
    * @return the equivalence relation annotation represented by the argument.
    */
   public static BratEquivRelation parseEquivRelation(String s) {
-    String toks[] = s.split("\t");
-    checkBratFormatArgument(toks.length == 2, "Illegal format: %s", s);
-
-    BratEquivRelation relation = new BratEquivRelation();
-    checkBratFormatArgument(toks[0].equals("*"), "Illegal format: %s", s);
+    return parseEquivRelation((CharSequence) s);
+  }
 
-    toks = toks[1].split(" ");
-    checkBratFormatArgument(toks.length >= 2, "Illegal format: %s", s);
-    checkBratFormatArgument(toks[0].equals("Equiv"), "Illegal format: %s", s);
+  /**
+   * Parses the character sequence as a equivalence relation annotation.
+   *
+   * @param s a character sequence containing the equivalence relation annotation to be parsed
+   * @return the equivalence relation annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratEquivRelation parseEquivRelation(CharSequence s) {
+    BratLineScanner scanner = new BratLineScanner(s);
+    scanner.nextColumn(false);
+    checkBratFormatArgument(scanner.restEquals(ID), "Illegal format: %s", s);
 
-    for (int i = 1; i < toks.length; i++) {
-      relation.addArgId(toks[i]);
+    BratEquivRelation relation = new BratEquivRelation();
+    checkBratFormatArgument(scanner.nextColumn(false), "Illegal format: %s", s);
+    checkBratFormatArgument(TYPE.equals(scanner.nextRequired(' ')), "Illegal format: %s", s);
+    checkBratFormatArgument(scanner.hasNext(), "Illegal format: %s", s);
+    while (scanner.hasNext()) {
+      relation.addArgId(scanner.next(' '));
     }
+    checkBratFormatArgument(!scanner.nextColumn(false), "Illegal format: %s", s);
     return relation;
   }
 
+  /**
+   * The ID shared by all equivalence relations.
+   */
+  public static final String ID = "*";
+
+  /**
+   * The type shared by all equivalence relations.
+   */
+  public static final String TYPE = "Equiv";
+
   private Set<String> argIds;
 
   public BratEquivRelation() {
     super();
-    super.setId("*");
-    super.setType("Equiv");
+    super.setId(ID);
+    super.setType(TYPE);
     argIds = Sets.newTreeSet();
   }
 
   public BratEquivRelation(BratEquivRelation relation) {
     super(relation);
-    argIds = Sets.newHashSet(relation.argIds);
+    argIds = Sets.newTreeSet(relation.argIds);
   }
 
   public void addArgId(String argId) {
@@ -125,15 +146,15 @@ public class BratEquivRelation extends BratAnnotation {
    * </pre>
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // args
     for(String argid: argIds) {
-      sb.append(' ').append(argid);
+      out.append(' ').append(argid);
     }
-    return sb.toString();
   }
 
   @Override
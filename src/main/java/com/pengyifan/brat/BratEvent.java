@@ -7,7 +7,7 @@ import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.Map.Entry;
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -56,26 +56,33 @@ public class BratEvent extends BratBaseRelation {
    * @return the event annotation represented by the argument.
    */
   public static BratEvent parseEvent(String s) {
+    return parseEvent(s, null);
+  }
 
-    String toks[] = s.split("\\t+");
-    checkBratFormatArgument(toks.length == 2, "Illegal format: %s", s);
+  /**
+   * Parses the character sequence as an event annotation.
+   * 
+   * @param s a character sequence containing the event annotation to be parsed
+   * @param symbols the symbol table to intern the type and roles with, or null
+   * @return the event annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratEvent parseEvent(CharSequence s, BratSymbolTable symbols) {
+    BratLineScanner scanner = new BratLineScanner(s, symbols);
+    scanner.nextColumn(false);
+    String id = scanner.rest();
 
     BratEvent event = new BratEvent();
-    event.setId(toks[0]);
-
-    toks = toks[1].split(" ");
-    int index = toks[0].indexOf(':');
-    checkBratFormatArgument(index != -1, "Illegal format: %s", s);
-
-    event.setType(toks[0].substring(0, index));
-    event.setTriggerId(toks[0].substring(index + 1));
-
-    for (int i = 1; i < toks.length; i++) {
-      index = toks[i].indexOf(':');
-      checkBratFormatArgument(index != -1, "Illegal format: %s", s);
-      event.putArgument(toks[i].substring(0, index), toks[i].substring(index + 1));
+    checkBratFormatArgument(scanner.nextColumn(true), "Illegal format: %s", s);
+    event.setType(scanner.nextRequiredSymbol(':', ' '));
+    event.setTriggerId(scanner.next(' '));
+    while (scanner.hasNext()) {
+      String role = scanner.nextRequiredSymbol(':', ' ');
+      event.putArgument(role, scanner.next(' '));
     }
+    checkBratFormatArgument(!scanner.nextColumn(true), "Illegal format: %s", s);
 
+    event.setId(id);
     return event;
   }
 
@@ -133,17 +140,15 @@ public class BratEvent extends BratBaseRelation {
    * @return
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // trigger
-    sb.append(':').append(getTriggerId());
+    out.append(':').append(getTriggerId());
     // args
-    for(Entry<String, String> entry: getArguments().entrySet()) {
-      sb.append(' ').append(entry.getKey()).append(':').append(entry.getValue());
-    }
-    return sb.toString();
+    appendArguments(out);
   }
 
   @Override
@@ -11,4 +11,15 @@ public class BratIllegalFormatException extends IllegalArgumentException {
   public BratIllegalFormatException(String s) {
     super(s);
   }
+
+  /**
+   * Constructs an exception with the specified detail message and cause.
+   *
+   * @param s the detail message
+   * @param cause the cause
+   * @since 1.3.0
+   */
+  public BratIllegalFormatException(String s, Throwable cause) {
+    super(s, cause);
+  }
 }
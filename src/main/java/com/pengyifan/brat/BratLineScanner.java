@@ -0,0 +1,241 @@
+package com.pengyifan.brat;
+
+import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
+
+/**
+ * Single-pass scanner over one line in the brat standoff format. The line is read as
+ * TAB-separated columns, and each column as fields separated by a delimiter. Only the fields
+ * that are returned as strings are copied out of the line, through
+ * {@code subSequence(start, end).toString()}, so the line can be any character sequence, such as
+ * a view of bytes that have not been decoded yet.
+ * <p>
+ * Trailing TABs are ignored, as {@link String#split(String)} did in earlier versions, so a line
+ * such as {@code "T1\tOrg 0 4\tSony\t"} has three columns.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+final class BratLineScanner {
+
+  private final CharSequence line;
+  /**
+   * End of the line without trailing TABs.
+   */
+  private final int length;
+  /**
+   * Symbol table for types and roles, or null if they are not interned.
+   */
+  private final BratSymbolTable symbols;
+  /**
+   * Current position in the current column.
+   */
+  private int pos;
+  /**
+   * End of the current column (exclusive), -1 before the first column.
+   */
+  private int limit;
+
+  BratLineScanner(CharSequence line) {
+    this(line, null);
+  }
+
+  BratLineScanner(CharSequence line, BratSymbolTable symbols) {
+    this.line = line;
+    this.symbols = symbols;
+    int length = line.length();
+    while (length > 0 && line.charAt(length - 1) == '\t') {
+      length--;
+    }
+    this.length = length;
+    this.pos = 0;
+    this.limit = -1;
+  }
+
+  /**
+   * Moves to the next TAB-separated column.
+   *
+   * @param collapse true if consecutive TABs are treated as one separator
+   * @return false if there is no more column
+   */
+  boolean nextColumn(boolean collapse) {
+    int start = limit + 1;
+    if (collapse) {
+      while (start < length && line.charAt(start) == '\t') {
+        start++;
+      }
+      if (start >= length && limit != -1) {
+        return false;
+      }
+    }
+    if (start > length) {
+      return false;
+    }
+    limit = indexOf('\t', start, length);
+    pos = start;
+    return true;
+  }
+
+  /**
+   * Returns true if the current column has more characters.
+   */
+  boolean hasNext() {
+    return pos < limit;
+  }
+
+  /**
+   * Returns the field up to the delimiter or the end of the current column, and skips the
+   * delimiter.
+   *
+   * @param delimiter field delimiter
+   * @return the field
+   */
+  String next(char delimiter) {
+    int start = pos;
+    int end = indexOf(delimiter);
+    pos = end < limit ? end + 1 : limit;
+    return substring(start, end);
+  }
+
+  /**
+   * Returns the field up to the delimiter, and skips the delimiter.
+   *
+   * @param delimiter field delimiter
+   * @return the field
+   * @throws BratIllegalFormatException if the current column does not contain the delimiter
+   */
+  String nextRequired(char delimiter) {
+    checkBratFormatArgument(indexOf(delimiter) < limit, "Illegal format: %s", line);
+    return next(delimiter);
+  }
+
+  /**
+   * Returns the field up to the delimiter, and skips the delimiter. The delimiter has to occur
+   * before the next stop character.
+   *
+   * @param delimiter field delimiter
+   * @param stop the character ending the search for the delimiter
+   * @return the field
+   * @throws BratIllegalFormatException if the delimiter does not occur before the stop character
+   */
+  String nextRequired(char delimiter, char stop) {
+    int end = indexOf(delimiter);
+    checkBratFormatArgument(end < limit && end < indexOf(stop), "Illegal format: %s", line);
+    return next(delimiter);
+  }
+
+  /**
+   * Returns the field up to the delimiter or the end of the current column as a symbol, and skips
+   * the delimiter. The symbol is interned if the scanner has a symbol table.
+   *
+   * @param delimiter field delimiter
+   * @return the symbol
+   */
+  String nextSymbol(char delimiter) {
+    int start = pos;
+    int end = indexOf(delimiter);
+    pos = end < limit ? end + 1 : limit;
+    return symbols == null ? substring(start, end) : symbols.intern(line, start, end);
+  }
+
+  /**
+   * Returns the field up to the delimiter as a symbol, and skips the delimiter.
+   *
+   * @param delimiter field delimiter
+   * @return the symbol
+   * @throws BratIllegalFormatException if the current column does not contain the delimiter
+   */
+  String nextRequiredSymbol(char delimiter) {
+    checkBratFormatArgument(indexOf(delimiter) < limit, "Illegal format: %s", line);
+    return nextSymbol(delimiter);
+  }
+
+  /**
+   * Returns the field up to the delimiter as a symbol, and skips the delimiter. The delimiter has
+   * to occur before the next stop character.
+   *
+   * @param delimiter field delimiter
+   * @param stop the character ending the search for the delimiter
+   * @return the symbol
+   * @throws BratIllegalFormatException if the delimiter does not occur before the stop character
+   */
+  String nextRequiredSymbol(char delimiter, char stop) {
+    int end = indexOf(delimiter);
+    checkBratFormatArgument(end < limit && end < indexOf(stop), "Illegal format: %s", line);
+    return nextSymbol(delimiter);
+  }
+
+  /**
+   * Parses the non-negative integer up to the delimiter or the end of the current column, and
+   * skips the delimiter.
+   *
+   * @param delimiter field delimiter
+   * @return the integer
+   */
+  int nextInt(char delimiter) {
+    int start = pos;
+    int value = 0;
+    while (pos < limit && line.charAt(pos) != delimiter) {
+      int digit = line.charAt(pos) - '0';
+      checkBratFormatArgument(digit >= 0 && digit <= 9, "Illegal format: %s", line);
+      checkBratFormatArgument(value <= (Integer.MAX_VALUE - digit) / 10,
+          "Illegal format: %s", line);
+      value = value * 10 + digit;
+      pos++;
+    }
+    checkBratFormatArgument(pos > start, "Illegal format: %s", line);
+    if (pos < limit) {
+      pos++;
+    }
+    return value;
+  }
+
+  /**
+   * Returns the rest of the current column.
+   *
+   * @return the rest of the current column
+   */
+  String rest() {
+    int start = pos;
+    pos = limit;
+    return substring(start, limit);
+  }
+
+  /**
+   * Returns true if the rest of the current column equals the string.
+   */
+  boolean restEquals(String s) {
+    if (limit - pos != s.length()) {
+      return false;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      if (line.charAt(pos + i) != s.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String substring(int start, int end) {
+    return line.subSequence(start, end).toString();
+  }
+
+  private int indexOf(char c) {
+    return indexOf(c, pos, limit);
+  }
+
+  /**
+   * Returns the index of the first c in [from, to), or to if there is none.
+   */
+  private int indexOf(char c, int from, int to) {
+    if (line instanceof String) {
+      int i = ((String) line).indexOf(c, from);
+      return i == -1 || i > to ? to : i;
+    }
+    for (int i = from; i < to; i++) {
+      if (line.charAt(i) == c) {
+        return i;
+      }
+    }
+    return to;
+  }
+}
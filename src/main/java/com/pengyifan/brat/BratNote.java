@@ -8,6 +8,7 @@ import static com.pengyifan.brat.BratPreconditions.checkBratFormatArgument;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -45,18 +46,31 @@ public class BratNote extends BratAnnotation {
    * @return the note annotation represented by the argument.
    */
   public static BratNote parseNote(String s) {
-    String toks[] = s.split("\\t+");
-    checkBratFormatArgument(toks.length == 3, "Illegal format: %s", s);
-
-    BratNote note = new BratNote();
-    note.setId(toks[0]);
-    note.setText(toks[2]);
+    return parseNote(s, null);
+  }
 
-    int index = toks[1].indexOf(' ');
-    checkBratFormatArgument(index != -1, "Illegal format: %s", s);
-    note.setType(toks[1].substring(0, index));
-    note.setRefId(toks[1].substring(index + 1));
+  /**
+   * Parses the character sequence as a note annotation.
+   * 
+   * @param s a character sequence containing the note annotation to be parsed
+   * @param symbols the symbol table to intern the type with, or null
+   * @return the note annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratNote parseNote(CharSequence s, BratSymbolTable symbols) {
+    BratLineScanner scanner = new BratLineScanner(s, symbols);
+    scanner.nextColumn(false);
+    String id = scanner.rest();
 
+    BratNote note = new BratNote();
+    checkBratFormatArgument(scanner.nextColumn(true), "Illegal format: %s", s);
+    note.setType(scanner.nextRequiredSymbol(' '));
+    note.setRefId(scanner.rest());
+    checkBratFormatArgument(scanner.nextColumn(true), "Illegal format: %s", s);
+    note.setText(scanner.rest());
+    checkBratFormatArgument(!scanner.nextColumn(true), "Illegal format: %s", s);
+
+    note.setId(id);
     return note;
   }
 
@@ -142,15 +156,15 @@ public class BratNote extends BratAnnotation {
    * </pre>
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // refid
-    sb.append(' ').append(getRefId());
+    out.append(' ').append(getRefId());
     // note
-    sb.append('\t').append(getText());
-    return sb.toString();
+    out.append('\t').append(getText());
   }
 
   @Override
@@ -3,7 +3,7 @@ package com.pengyifan.brat;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-import java.util.Map.Entry;
+import java.io.IOException;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -44,21 +44,32 @@ public class BratRelation extends BratBaseRelation {
    * @return the relation annotation represented by the argument.
    */
   public static BratRelation parseRelation(String s) {
-    String toks[] = s.split("\\t+");
-    checkBratFormatArgument(toks.length == 2, "Illegal format: %s", s);
-
-    BratRelation relation = new BratRelation();
-    relation.setId(toks[0]);
+    return parseRelation(s, null);
+  }
 
-    toks = toks[1].split(" ");
-    relation.setType(toks[0]);
+  /**
+   * Parses the character sequence as a relation annotation.
+   *
+   * @param s a character sequence containing the relation annotation to be parsed
+   * @param symbols the symbol table to intern the type and roles with, or null
+   * @return the relation annotation represented by the argument.
+   * @since 1.3.0
+   */
+  public static BratRelation parseRelation(CharSequence s, BratSymbolTable symbols) {
+    BratLineScanner scanner = new BratLineScanner(s, symbols);
+    scanner.nextColumn(false);
+    String id = scanner.rest();
 
-    for (int i = 1; i < toks.length; i++) {
-      int index = toks[i].indexOf(':');
-      checkBratFormatArgument(index != -1, "Illegal format: %s", s);
-      relation.putArgument(toks[i].substring(0, index), toks[i].substring(index + 1));
+    BratRelation relation = new BratRelation();
+    checkBratFormatArgument(scanner.nextColumn(true), "Illegal format: %s", s);
+    relation.setType(scanner.nextSymbol(' '));
+    while (scanner.hasNext()) {
+      String role = scanner.nextRequiredSymbol(':', ' ');
+      relation.putArgument(role, scanner.next(' '));
     }
+    checkBratFormatArgument(!scanner.nextColumn(true), "Illegal format: %s", s);
 
+    relation.setId(id);
     return relation;
   }
 
@@ -82,15 +93,13 @@ public class BratRelation extends BratBaseRelation {
    * </pre>
    */
   @Override
-  public String toBratString() {
-    StringBuilder sb = new StringBuilder(getId());
+  public void appendTo(Appendable out)
+      throws IOException {
+    out.append(getId());
     // type
-    sb.append('\t').append(getType());
+    out.append('\t').append(getType());
     // args
-    for (Entry<String, String> entry : getArguments().entrySet()) {
-      sb.append(' ').append(entry.getKey()).append(':').append(entry.getValue());
-    }
-    return sb.toString();
+    appendArguments(out);
   }
 
   @Override
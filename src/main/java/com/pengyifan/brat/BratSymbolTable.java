@@ -0,0 +1,213 @@
+package com.pengyifan.brat;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Canonicalizes the strings that repeat across a corpus: annotation types, argument roles and
+ * attribute flags. A corpus has only a few hundred of them, so interning them saves one string
+ * per annotation and lets equal symbols be compared by reference.
+ * <p>
+ * Every symbol also gets a small int ID, in the order the symbols were first interned.
+ * <p>
+ * The table can be shared by threads. Lookups of symbols that are already in the table do not
+ * lock and do not allocate, even when the symbol is a range of a longer character sequence.
+ * Only adding a new symbol locks the table.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public final class BratSymbolTable {
+
+  /**
+   * Open-addressing table. slots[i] is the ID of the symbol plus one, 0 if the slot is empty.
+   */
+  private static final class Table {
+
+    private final int[] slots;
+    private final String[] symbols;
+    private final int[] hashes;
+
+    Table(int capacity) {
+      slots = new int[capacity * 2];
+      symbols = new String[capacity];
+      hashes = new int[capacity];
+    }
+  }
+
+  private volatile Table table;
+  /**
+   * guarded by this
+   */
+  private int size;
+
+  public BratSymbolTable() {
+    table = new Table(64);
+  }
+
+  /**
+   * Returns the canonical instance of the string.
+   *
+   * @param s the string
+   * @return the canonical string equal to s
+   */
+  public String intern(CharSequence s) {
+    return intern(s, 0, s.length());
+  }
+
+  /**
+   * Returns the canonical instance of the characters in [start, end) of the sequence.
+   *
+   * @param s the character sequence
+   * @param start the beginning index, inclusive
+   * @param end the ending index, exclusive
+   * @return the canonical string equal to the subsequence
+   */
+  public String intern(CharSequence s, int start, int end) {
+    int hash = hash(s, start, end);
+    Table t = table;
+    int id = find(t, s, start, end, hash);
+    if (id != -1) {
+      return t.symbols[id];
+    }
+    synchronized (this) {
+      id = add(s, start, end, hash);
+      return table.symbols[id];
+    }
+  }
+
+  /**
+   * Returns the ID of the string, adding it to this table if needed.
+   *
+   * @param s the string
+   * @return the ID of the symbol
+   */
+  public int id(CharSequence s) {
+    return id(s, 0, s.length());
+  }
+
+  /**
+   * Returns the ID of the characters in [start, end) of the sequence, adding them to this table
+   * if needed.
+   *
+   * @param s the character sequence
+   * @param start the beginning index, inclusive
+   * @param end the ending index, exclusive
+   * @return the ID of the symbol
+   */
+  public int id(CharSequence s, int start, int end) {
+    int hash = hash(s, start, end);
+    int id = find(table, s, start, end, hash);
+    return id != -1 ? id : add(s, start, end, hash);
+  }
+
+  /**
+   * Returns the symbol of the ID.
+   *
+   * @param id the ID of a symbol
+   * @return the symbol
+   * @throws IndexOutOfBoundsException if no symbol has the ID
+   */
+  public String symbol(int id) {
+    Table t = table;
+    String symbol = id >= 0 && id < t.symbols.length ? t.symbols[id] : null;
+    if (symbol == null) {
+      synchronized (this) {
+        checkElementIndex(id, size);
+        symbol = table.symbols[id];
+      }
+    }
+    return symbol;
+  }
+
+  /**
+   * Returns the number of symbols in this table.
+   *
+   * @return the number of symbols
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  private static int hash(CharSequence s, int start, int end) {
+    int h = 0;
+    for (int i = start; i < end; i++) {
+      h = 31 * h + s.charAt(i);
+    }
+    // spread the bits, as String hash codes of short symbols are close to each other
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the ID of the symbol, or -1 if it is not in the table (or not visible yet to this
+   * thread).
+   */
+  private static int find(Table t, CharSequence s, int start, int end, int hash) {
+    int mask = t.slots.length - 1;
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      int slot = t.slots[i];
+      if (slot == 0) {
+        return -1;
+      }
+      String symbol = t.symbols[slot - 1];
+      if (symbol == null) {
+        return -1;
+      }
+      if (t.hashes[slot - 1] == hash && contentEquals(symbol, s, start, end)) {
+        return slot - 1;
+      }
+    }
+  }
+
+  private static boolean contentEquals(String symbol, CharSequence s, int start, int end) {
+    if (symbol.length() != end - start) {
+      return false;
+    }
+    if (s instanceof String) {
+      return symbol.regionMatches(0, (String) s, start, end - start);
+    }
+    for (int i = 0; i < symbol.length(); i++) {
+      if (symbol.charAt(i) != s.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized int add(CharSequence s, int start, int end, int hash) {
+    Table t = table;
+    int id = find(t, s, start, end, hash);
+    if (id != -1) {
+      return id;
+    }
+    if (size == t.symbols.length) {
+      t = grow(t);
+    }
+    id = size;
+    t.symbols[id] = s.subSequence(start, end).toString();
+    t.hashes[id] = hash;
+    insert(t, id);
+    size++;
+    // publish the new symbol
+    table = t;
+    return id;
+  }
+
+  private Table grow(Table t) {
+    Table newTable = new Table(t.symbols.length * 2);
+    System.arraycopy(t.symbols, 0, newTable.symbols, 0, size);
+    System.arraycopy(t.hashes, 0, newTable.hashes, 0, size);
+    for (int id = 0; id < size; id++) {
+      insert(newTable, id);
+    }
+    return newTable;
+  }
+
+  private static void insert(Table t, int id) {
+    int mask = t.slots.length - 1;
+    int i = t.hashes[id] & mask;
+    while (t.slots[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    t.slots[i] = id + 1;
+  }
+}
@@ -0,0 +1,100 @@
+package com.pengyifan.brat.io;
+
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.BratIllegalFormatException;
+import com.pengyifan.brat.BratNote;
+import com.pengyifan.brat.BratRelation;
+
+/**
+ * Receives annotations from {@link BratDocumentReader#read(BratAnnotationHandler)} one at a
+ * time, in the order they appear in the input, without building a
+ * {@link com.pengyifan.brat.BratDocument}. By default, the typed methods pass the annotation to
+ * {@link #onAnnotation(BratAnnotation)}, which does nothing, and
+ * {@link #onError(int, String, BratIllegalFormatException)} throws an exception whose message
+ * starts with the line number.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public interface BratAnnotationHandler {
+
+  /**
+   * Receives an annotation of any kind.
+   *
+   * @param annotation the annotation
+   */
+  default void onAnnotation(BratAnnotation annotation) {
+  }
+
+  /**
+   * Receives an entity annotation.
+   *
+   * @param entity the entity annotation
+   */
+  default void onEntity(BratEntity entity) {
+    onAnnotation(entity);
+  }
+
+  /**
+   * Receives a relation annotation.
+   *
+   * @param relation the relation annotation
+   */
+  default void onRelation(BratRelation relation) {
+    onAnnotation(relation);
+  }
+
+  /**
+   * Receives an event annotation.
+   *
+   * @param event the event annotation
+   */
+  default void onEvent(BratEvent event) {
+    onAnnotation(event);
+  }
+
+  /**
+   * Receives an attribute annotation.
+   *
+   * @param attribute the attribute annotation
+   */
+  default void onAttribute(BratAttribute attribute) {
+    onAnnotation(attribute);
+  }
+
+  /**
+   * Receives a note annotation.
+   *
+   * @param note the note annotation
+   */
+  default void onNote(BratNote note) {
+    onAnnotation(note);
+  }
+
+  /**
+   * Receives an equivalence relation annotation.
+   *
+   * @param relation the equivalence relation annotation
+   */
+  default void onEquivRelation(BratEquivRelation relation) {
+    onAnnotation(relation);
+  }
+
+  /**
+   * Receives a line that cannot be parsed. Reading continues with the next line if this method
+   * returns normally. By default, it stops the reading with an exception whose message starts
+   * with the line number and whose cause is {@code e}.
+   *
+   * @param lineNumber the line number, starting from 1
+   * @param line       the line
+   * @param e          the cause
+   */
+  default void onError(int lineNumber, String line, BratIllegalFormatException e) {
+    throw new BratIllegalFormatException(
+        String.format("Line %d: %s", lineNumber, e.getMessage()), e);
+  }
+}
@@ -0,0 +1,77 @@
+package com.pengyifan.brat.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable view of one line of bytes in a buffer, read as characters without decoding. Each
+ * byte is one character, which is only correct if the line is ASCII; use {@link #decode()} for
+ * other lines. Only the subsequences that are turned into strings are copied out of the buffer.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+final class BratByteLine implements CharSequence {
+
+  private ByteBuffer buffer;
+  private int start;
+  private int length;
+  private byte[] bytes = new byte[256];
+
+  /**
+   * Makes this view show the bytes in [start, end) of the buffer.
+   *
+   * @return this view
+   */
+  BratByteLine reset(ByteBuffer buffer, int start, int end) {
+    this.buffer = buffer;
+    this.start = start;
+    this.length = end - start;
+    return this;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    return (char) buffer.get(start + index);
+  }
+
+  /**
+   * Returns the ASCII characters in [from, to) as a string.
+   */
+  @Override
+  public CharSequence subSequence(int from, int to) {
+    int n = copy(from, to);
+    return new String(bytes, 0, n, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Decodes the whole line as UTF-8.
+   *
+   * @return the decoded line
+   */
+  String decode() {
+    int n = copy(0, length);
+    return new String(bytes, 0, n, StandardCharsets.UTF_8);
+  }
+
+  private int copy(int from, int to) {
+    int n = to - from;
+    if (bytes.length < n) {
+      bytes = Arrays.copyOf(bytes, Math.max(n, bytes.length * 2));
+    }
+    buffer.position(start + from);
+    buffer.get(bytes, 0, n);
+    return n;
+  }
+
+  @Override
+  public String toString() {
+    return subSequence(0, length).toString();
+  }
+}
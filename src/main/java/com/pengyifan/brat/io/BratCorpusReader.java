@@ -0,0 +1,218 @@
+package com.pengyifan.brat.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratSymbolTable;
+
+/**
+ * Reads a corpus of brat documents stored in a directory tree. Every {@code DOC.ann} file is
+ * paired with the {@code DOC.txt} file in the same directory. The document id is the base name
+ * {@code DOC}, and the text is the content of the {@code .txt} file, or null if there is none.
+ * <p>
+ * Documents are loaded in parallel on an executor and passed to a consumer as soon as they are
+ * read. At most {@code maxInFlight} documents are being read or consumed at the same time, so
+ * the memory used does not grow with the size of the corpus.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratCorpusReader {
+
+  private static final String ANN_SUFFIX = ".ann";
+  private static final String TXT_SUFFIX = ".txt";
+
+  private final Path root;
+  private final Executor executor;
+  private final int maxInFlight;
+  private BratSymbolTable symbols;
+  private boolean sharedEntityText;
+
+  /**
+   * Creates a corpus reader that uses one thread per available processor.
+   *
+   * @param root the root directory of the corpus
+   */
+  public BratCorpusReader(Path root) {
+    this(root, null, Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * Creates a corpus reader that loads documents on the specified executor.
+   *
+   * @param root the root directory of the corpus
+   * @param executor the executor to load documents on
+   * @param maxInFlight the maximum number of documents being loaded or consumed at the same
+   *        time
+   */
+  public BratCorpusReader(Path root, Executor executor, int maxInFlight) {
+    checkNotNull(root, "root has to be set");
+    checkArgument(maxInFlight > 0, "maxInFlight has to be positive: %s", maxInFlight);
+    this.root = root;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Sets the symbol table to intern annotation types, argument roles and attribute flags of all
+   * documents with. By default nothing is interned.
+   *
+   * @param symbols the symbol table, or null
+   */
+  public void setSymbolTable(BratSymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
+  /**
+   * Sets whether the entities of the documents read share the text of the document instead of
+   * storing their own copy.
+   *
+   * @param sharedEntityText true if entities share the document text
+   * @see BratDocument#setSharedEntityText(boolean)
+   */
+  public void setSharedEntityText(boolean sharedEntityText) {
+    this.sharedEntityText = sharedEntityText;
+  }
+
+  /**
+   * Reads all documents in the corpus and passes them to the consumer. The consumer may be
+   * called concurrently from several threads, in no particular order. This method returns
+   * after all documents have been consumed.
+   * <p>
+   * If a document cannot be read, or the consumer throws an exception, no more documents are
+   * started and the first exception is rethrown once the documents in flight are done.
+   *
+   * @param consumer the consumer of documents
+   * @throws IOException in case of an I/O error
+   */
+  public void read(Consumer<BratDocument> consumer)
+      throws IOException {
+    ExecutorService ownExecutor = null;
+    Executor exec = executor;
+    if (exec == null) {
+      ownExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+      exec = ownExecutor;
+    }
+    try {
+      read(consumer, exec);
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdown();
+      }
+    }
+  }
+
+  private void read(Consumer<BratDocument> consumer, Executor exec)
+      throws IOException {
+    Semaphore permits = new Semaphore(maxInFlight);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    try (Stream<Path> files = annFiles(root)) {
+      Iterator<Path> itr = files.iterator();
+      while (itr.hasNext() && error.get() == null) {
+        Path file = itr.next();
+        permits.acquire();
+        try {
+          exec.execute(() -> {
+            try {
+              if (error.get() == null) {
+                consumer.accept(readDocument(file, symbols, sharedEntityText));
+              }
+            } catch (Throwable e) {
+              error.compareAndSet(null, e);
+            } finally {
+              permits.release();
+            }
+          });
+        } catch (RuntimeException e) {
+          permits.release();
+          throw e;
+        }
+      }
+      // wait for the documents in flight
+      permits.acquire(maxInFlight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading " + root);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    BratIOUtils.rethrow(error.get());
+  }
+
+  /**
+   * Returns the {@code .ann} files under the directory. The stream has to be closed after use.
+   *
+   * @param root the root directory of the corpus
+   * @return the {@code .ann} files
+   * @throws IOException in case of an I/O error
+   */
+  public static Stream<Path> annFiles(Path root)
+      throws IOException {
+    return Files.walk(root)
+        .filter(p -> p.getFileName().toString().endsWith(ANN_SUFFIX))
+        .filter(Files::isRegularFile);
+  }
+
+  /**
+   * Reads the {@code .ann} file and its companion {@code .txt} file into a brat document. The
+   * document id is the base name of the file.
+   *
+   * @param annFile the {@code .ann} file
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   */
+  public static BratDocument readDocument(Path annFile)
+      throws IOException {
+    return readDocument(annFile, null);
+  }
+
+  /**
+   * Reads the {@code .ann} file and its companion {@code .txt} file into a brat document,
+   * interning annotation types, argument roles and attribute flags with the symbol table.
+   *
+   * @param annFile the {@code .ann} file
+   * @param symbols the symbol table, or null
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   */
+  public static BratDocument readDocument(Path annFile, BratSymbolTable symbols)
+      throws IOException {
+    return readDocument(annFile, symbols, false);
+  }
+
+  private static BratDocument readDocument(Path annFile, BratSymbolTable symbols,
+      boolean sharedEntityText)
+      throws IOException {
+    String fileName = annFile.getFileName().toString();
+    String docId = fileName.endsWith(ANN_SUFFIX)
+        ? fileName.substring(0, fileName.length() - ANN_SUFFIX.length())
+        : fileName;
+    Path txtFile = annFile.resolveSibling(docId + TXT_SUFFIX);
+    String text = null;
+    if (Files.isRegularFile(txtFile)) {
+      text = new String(Files.readAllBytes(txtFile), StandardCharsets.UTF_8);
+    }
+    try (BratDocumentReader reader =
+        new BratDocumentReader(Files.newBufferedReader(annFile), docId, text)) {
+      reader.setSymbolTable(symbols);
+      reader.setSharedEntityText(sharedEntityText);
+      return reader.read();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.pengyifan.brat.io;
+
+import java.util.Objects;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * A line skipped by a lenient {@link BratDocumentReader} or {@link BratMappedDocumentReader}:
+ * its line number, the raw line, and the reason why it was skipped.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public final class BratDiagnostic {
+
+  private final int lineNumber;
+  private final String line;
+  private final String reason;
+
+  public BratDiagnostic(int lineNumber, String line, String reason) {
+    this.lineNumber = lineNumber;
+    this.line = line;
+    this.reason = reason;
+  }
+
+  /**
+   * Returns the line number, starting from 1.
+   *
+   * @return the line number
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns the raw line.
+   *
+   * @return the raw line
+   */
+  public String getLine() {
+    return line;
+  }
+
+  /**
+   * Returns why the line was skipped.
+   *
+   * @return the reason
+   */
+  public String getReason() {
+    return reason;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof BratDiagnostic)) {
+      return false;
+    }
+    BratDiagnostic rhs = (BratDiagnostic) o;
+    return lineNumber == rhs.lineNumber
+        && Objects.equals(line, rhs.line)
+        && Objects.equals(reason, rhs.reason);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(lineNumber, line, reason);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+        .append("lineNumber", lineNumber)
+        .append("line", line)
+        .append("reason", reason)
+        .toString();
+  }
+}
@@ -0,0 +1,86 @@
+package com.pengyifan.brat.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratIllegalFormatException;
+
+/**
+ * Handles the bad lines of one read, shared by {@link BratDocumentReader} and
+ * {@link BratMappedDocumentReader}. In strict mode, the first bad line stops the reading with an
+ * exception whose message starts with the line number. In lenient mode, bad lines are skipped
+ * and recorded as {@link BratDiagnostic}s, up to a maximum number.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+final class BratDiagnosticLog {
+
+  private boolean lenient;
+  private int maxDiagnostics = 100;
+  private final List<BratDiagnostic> diagnostics = Lists.newArrayList();
+  private int skippedLines;
+
+  void setLenient(boolean lenient) {
+    this.lenient = lenient;
+  }
+
+  void setMaxDiagnostics(int maxDiagnostics) {
+    checkArgument(maxDiagnostics >= 0, "maxDiagnostics should be non-negative: %s",
+        maxDiagnostics);
+    this.maxDiagnostics = maxDiagnostics;
+  }
+
+  List<BratDiagnostic> getDiagnostics() {
+    return Collections.unmodifiableList(diagnostics);
+  }
+
+  int getSkippedLineCount() {
+    return skippedLines;
+  }
+
+  /**
+   * Adds the annotation to the document, skipping the line if its ID is already taken.
+   */
+  void add(BratDocument doc, BratAnnotation ann, int lineNumber, CharSequence line) {
+    try {
+      doc.addAnnotation(ann);
+    } catch (IllegalArgumentException e) {
+      skip(lineNumber, line, e);
+    }
+  }
+
+  /**
+   * Records the bad line in lenient mode, or throws an exception with the line number. The line
+   * is only turned into a string if it is recorded.
+   */
+  void skip(int lineNumber, CharSequence line, IllegalArgumentException e) {
+    if (!lenient) {
+      String message = String.format("Line %d: %s", lineNumber, e.getMessage());
+      if (e instanceof BratIllegalFormatException) {
+        throw new BratIllegalFormatException(message, e);
+      }
+      throw new IllegalArgumentException(message, e);
+    }
+    skippedLines++;
+    if (diagnostics.size() < maxDiagnostics) {
+      diagnostics.add(new BratDiagnostic(lineNumber, line.toString(), e.getMessage()));
+    }
+  }
+
+  /**
+   * Returns the exception of a line that cannot be parsed as a format exception, for
+   * {@link BratAnnotationHandler#onError}. The parsers also throw plain
+   * IllegalArgumentExceptions, for example for a span whose end is before its start.
+   */
+  static BratIllegalFormatException asFormatException(IllegalArgumentException e) {
+    return e instanceof BratIllegalFormatException
+        ? (BratIllegalFormatException) e
+        : new BratIllegalFormatException(e.getMessage(), e);
+  }
+}
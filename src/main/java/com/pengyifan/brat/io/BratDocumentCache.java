@@ -0,0 +1,152 @@
+package com.pengyifan.brat.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.util.BratUtils;
+
+/**
+ * A bounded cache of brat documents read from files.
+ * <p>
+ * Documents are keyed by the absolute, normalized path of the file. A cached document is only
+ * used if the modification time and the size of the file are unchanged since it was read;
+ * otherwise the file is read again. The total number of annotations held by the cache is
+ * bounded; the least recently used documents are evicted first.
+ * <p>
+ * Callers always get a deep copy of the cached document, so changing a returned document does
+ * not change the cache. The cache can be shared by threads.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratDocumentCache {
+
+  private static final class Entry {
+
+    private final BratDocument doc;
+    private final long lastModified;
+    private final long size;
+
+    Entry(BratDocument doc, long lastModified, long size) {
+      this.doc = doc;
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+  }
+
+  private final Cache<Path, Entry> cache;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder loadSuccesses;
+  private final LongAdder loadExceptions;
+  private final LongAdder loadNanos;
+
+  /**
+   * Creates a cache holding at most about the specified number of annotations. Every document
+   * weighs its number of annotations plus one.
+   *
+   * @param maxAnnotations the maximum total number of annotations of the cached documents
+   */
+  public BratDocumentCache(long maxAnnotations) {
+    checkArgument(maxAnnotations > 0, "maxAnnotations has to be positive: %s", maxAnnotations);
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxAnnotations)
+        .weigher((Path file, Entry entry) -> entry.doc.getAnnotations().size() + 1)
+        .recordStats()
+        .build();
+    hits = new LongAdder();
+    misses = new LongAdder();
+    loadSuccesses = new LongAdder();
+    loadExceptions = new LongAdder();
+    loadNanos = new LongAdder();
+  }
+
+  /**
+   * Returns a copy of the brat document in the file, reading the file only if it is not cached
+   * or has changed since it was cached.
+   *
+   * @param file the file to read
+   * @param docId document id of the returned document
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   */
+  public BratDocument read(Path file, String docId)
+      throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+    long lastModified = attrs.lastModifiedTime().toMillis();
+    long size = attrs.size();
+
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null && entry.lastModified == lastModified && entry.size == size) {
+      hits.increment();
+    } else {
+      misses.increment();
+      entry = new Entry(load(key), lastModified, size);
+      cache.put(key, entry);
+    }
+    BratDocument doc = BratUtils.deepCopy(entry.doc);
+    doc.setDocId(docId);
+    return doc;
+  }
+
+  private BratDocument load(Path file)
+      throws IOException {
+    long start = System.nanoTime();
+    try {
+      BratDocument doc = BratIOUtils.read(file, null);
+      loadSuccesses.increment();
+      return doc;
+    } catch (IOException | RuntimeException e) {
+      loadExceptions.increment();
+      throw e;
+    } finally {
+      loadNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Removes the document of the file from this cache.
+   *
+   * @param file the file
+   */
+  public void invalidate(Path file) {
+    cache.invalidate(file.toAbsolutePath().normalize());
+  }
+
+  /**
+   * Removes all documents from this cache.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns the approximate number of documents in this cache.
+   *
+   * @return the number of cached documents
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the statistics of this cache. A cached document whose file has changed counts as a
+   * miss.
+   *
+   * @return the statistics of this cache
+   */
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), loadSuccesses.sum(), loadExceptions.sum(),
+        loadNanos.sum(), cache.stats().evictionCount());
+  }
+}
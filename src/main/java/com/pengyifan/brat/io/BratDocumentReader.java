@@ -1,5 +1,7 @@
 package com.pengyifan.brat.io;
 
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratAnnotation;
 import com.pengyifan.brat.BratAttribute;
 import com.pengyifan.brat.BratDocument;
 import com.pengyifan.brat.BratEntity;
@@ -8,14 +10,29 @@ import com.pengyifan.brat.BratEvent;
 import com.pengyifan.brat.BratIllegalFormatException;
 import com.pengyifan.brat.BratNote;
 import com.pengyifan.brat.BratRelation;
+import com.pengyifan.brat.BratSymbolTable;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Reads the brat document from the input stream.
+ * <p>
+ * By default, reading stops at the first line that cannot be parsed or whose ID is already
+ * taken, with an exception whose message starts with the line number. In lenient mode, such
+ * lines are skipped and recorded as {@link BratDiagnostic}s instead, up to a maximum number.
  *
  * @author "Yifan Peng"
  * @since 1.0.0
@@ -25,6 +42,9 @@ public class BratDocumentReader implements Closeable {
   private LineNumberReader reader;
   private String docId;
   private String text;
+  private BratSymbolTable symbols;
+  private boolean sharedEntityText;
+  private final BratDiagnosticLog log = new BratDiagnosticLog();
 
   /**
    * Creates a brat document reader.
@@ -58,6 +78,74 @@ public class BratDocumentReader implements Closeable {
     this.text = text;
   }
 
+  /**
+   * Sets the symbol table to intern annotation types, argument roles and attribute flags with.
+   * Readers of the same corpus can share one table. By default nothing is interned.
+   *
+   * @param symbols the symbol table, or null
+   * @since 1.3.0
+   */
+  public void setSymbolTable(BratSymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
+  /**
+   * Sets whether the entities of the documents read share the text of the document instead of
+   * storing their own copy. It only takes effect if the reader has the document text.
+   *
+   * @param sharedEntityText true if entities share the document text
+   * @since 1.3.0
+   * @see BratDocument#setSharedEntityText(boolean)
+   */
+  public void setSharedEntityText(boolean sharedEntityText) {
+    this.sharedEntityText = sharedEntityText;
+  }
+
+  /**
+   * Sets whether malformed lines and lines with a duplicated ID are skipped by {@link #read()},
+   * {@link #readParallel()} and {@link #iterator()}, instead of stopping the reading. Malformed
+   * lines include lines with invalid values, such as a span whose end is before its start. Errors
+   * passed to {@link #read(BratAnnotationHandler)} are still handled by the handler.
+   *
+   * @param lenient true if bad lines are skipped
+   * @since 1.3.0
+   */
+  public void setLenient(boolean lenient) {
+    log.setLenient(lenient);
+  }
+
+  /**
+   * Sets the maximum number of diagnostics kept in lenient mode. Lines skipped after that are
+   * still counted. The default is 100.
+   *
+   * @param maxDiagnostics the maximum number of diagnostics
+   * @since 1.3.0
+   */
+  public void setMaxDiagnostics(int maxDiagnostics) {
+    log.setMaxDiagnostics(maxDiagnostics);
+  }
+
+  /**
+   * Returns the diagnostics of the lines skipped in lenient mode, in the order of the lines.
+   *
+   * @return the diagnostics of the skipped lines, at most the maximum number
+   * @since 1.3.0
+   */
+  public List<BratDiagnostic> getDiagnostics() {
+    return log.getDiagnostics();
+  }
+
+  /**
+   * Returns the number of lines skipped in lenient mode, including those beyond the maximum
+   * number of diagnostics.
+   *
+   * @return the number of skipped lines
+   * @since 1.3.0
+   */
+  public int getSkippedLineCount() {
+    return log.getSkippedLineCount();
+  }
+
   /**
    * Reads the brat document.
    *
@@ -69,40 +157,260 @@ public class BratDocumentReader implements Closeable {
     BratDocument doc = new BratDocument();
     doc.setDocId(docId);
     doc.setText(text);
-
+    doc.setSharedEntityText(sharedEntityText);
     String line;
     while ((line = reader.readLine()) != null) {
       if (line.isEmpty()) {
         continue;
       }
-      char firstChar = line.charAt(0);
-      switch (firstChar) {
-      case 'T':
-        doc.addAnnotation(BratEntity.parseEntity(line));
-        break;
-      case 'E':
-        doc.addAnnotation(BratEvent.parseEvent(line));
-        break;
-      case 'R':
-        doc.addAnnotation(BratRelation.parseRelation(line));
-        break;
-      case '#':
-        doc.addAnnotation(BratNote.parseNote(line));
-        break;
-      case 'A':
-      case 'M':
-        doc.addAnnotation(BratAttribute.parseAttribute(line));
-        break;
-      case '*':
-        doc.addAnnotation(BratEquivRelation.parseEquivRelation(line));
-        break;
-      default:
-        throw new BratIllegalFormatException(String.format("Cannot parse line: %s", line));
+      BratAnnotation ann;
+      try {
+        ann = parseLine(line, symbols);
+      } catch (IllegalArgumentException e) {
+        log.skip(reader.getLineNumber(), line, e);
+        continue;
       }
+      log.add(doc, ann, reader.getLineNumber(), line);
     }
     return doc;
   }
 
+  /**
+   * Reads the brat document, parsing lines in parallel in the common fork/join pool.
+   *
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   * @see #readParallel(ForkJoinPool)
+   */
+  public BratDocument readParallel()
+      throws IOException {
+    return readParallel(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Reads the brat document, parsing lines in parallel in the specified pool. The lines are
+   * first read into memory, then split into chunks of consecutive lines that are parsed
+   * concurrently. The annotations are added to the document in the original line order, so
+   * the result, including duplicate-ID and format errors, is the same as for {@link #read()}.
+   *
+   * @param pool the fork/join pool used to parse lines
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   */
+  public BratDocument readParallel(ForkJoinPool pool)
+      throws IOException {
+    int firstLineNumber = reader.getLineNumber() + 1;
+    List<String> lines = Lists.newArrayList();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lines.add(line);
+    }
+    ParseTask task = new ParseTask(lines, 0, lines.size(), symbols);
+    pool.invoke(task);
+
+    BratDocument doc = new BratDocument();
+    doc.setDocId(docId);
+    doc.setText(text);
+    doc.setSharedEntityText(sharedEntityText);
+    for (int i = 0; i < lines.size(); i++) {
+      if (task.errors[i] != null) {
+        log.skip(firstLineNumber + i, lines.get(i), task.errors[i]);
+      } else if (task.annotations[i] != null) {
+        log.add(doc, task.annotations[i], firstLineNumber + i, lines.get(i));
+      }
+    }
+    return doc;
+  }
+
+  private static class ParseTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+    private static final int THRESHOLD = 1024;
+
+    private final List<String> lines;
+    private final BratSymbolTable symbols;
+    private final int from;
+    private final int to;
+    private final BratAnnotation[] annotations;
+    private final IllegalArgumentException[] errors;
+
+    ParseTask(List<String> lines, int from, int to, BratSymbolTable symbols) {
+      this(lines, from, to, symbols, new BratAnnotation[lines.size()],
+          new IllegalArgumentException[lines.size()]);
+    }
+
+    private ParseTask(List<String> lines, int from, int to, BratSymbolTable symbols,
+        BratAnnotation[] annotations, IllegalArgumentException[] errors) {
+      this.lines = lines;
+      this.symbols = symbols;
+      this.from = from;
+      this.to = to;
+      this.annotations = annotations;
+      this.errors = errors;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          String line = lines.get(i);
+          if (line.isEmpty()) {
+            continue;
+          }
+          try {
+            annotations[i] = parseLine(line, symbols);
+          } catch (IllegalArgumentException e) {
+            errors[i] = e;
+          }
+        }
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(new ParseTask(lines, from, mid, symbols, annotations, errors),
+            new ParseTask(lines, mid, to, symbols, annotations, errors));
+      }
+    }
+  }
+
+  /**
+   * Reads the annotations and passes them to the handler one at a time, without building the
+   * brat document.
+   *
+   * @param handler the annotation handler
+   * @throws IOException in case of an I/O error
+   */
+  public void read(BratAnnotationHandler handler)
+      throws IOException {
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      BratAnnotation ann;
+      try {
+        ann = parseLine(line, symbols);
+      } catch (IllegalArgumentException e) {
+        handler.onError(reader.getLineNumber(), line, BratDiagnosticLog.asFormatException(e));
+        continue;
+      }
+      dispatch(ann, handler);
+    }
+  }
+
+  /**
+   * Passes the annotation to the handler method of its kind.
+   */
+  static void dispatch(BratAnnotation ann, BratAnnotationHandler handler) {
+    if (ann instanceof BratEntity) {
+      handler.onEntity((BratEntity) ann);
+    } else if (ann instanceof BratEvent) {
+      handler.onEvent((BratEvent) ann);
+    } else if (ann instanceof BratRelation) {
+      handler.onRelation((BratRelation) ann);
+    } else if (ann instanceof BratNote) {
+      handler.onNote((BratNote) ann);
+    } else if (ann instanceof BratAttribute) {
+      handler.onAttribute((BratAttribute) ann);
+    } else {
+      handler.onEquivRelation((BratEquivRelation) ann);
+    }
+  }
+
+  /**
+   * Returns a lazy iterator over the annotations. Each call of {@code next()} reads only as many
+   * lines as needed to parse the next annotation.
+   *
+   * @return an iterator over the annotations
+   * @throws UncheckedIOException in case of an I/O error while iterating
+   * @throws BratIllegalFormatException if a line cannot be parsed, unless the reader is lenient
+   */
+  public Iterator<BratAnnotation> iterator() {
+    return new Iterator<BratAnnotation>() {
+
+      private BratAnnotation next;
+
+      @Override
+      public boolean hasNext() {
+        if (next != null) {
+          return true;
+        }
+        try {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+              continue;
+            }
+            try {
+              next = parseLine(line, symbols);
+              return true;
+            } catch (IllegalArgumentException e) {
+              log.skip(reader.getLineNumber(), line, e);
+            }
+          }
+          return false;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public BratAnnotation next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        BratAnnotation ann = next;
+        next = null;
+        return ann;
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy, sequential stream of the annotations, so that short-circuiting operations
+   * such as {@code anyMatch} or {@code limit} stop reading the input early. Closing the stream
+   * closes this reader.
+   *
+   * @return a stream of the annotations
+   */
+  public Stream<BratAnnotation> annotations() {
+    Spliterator<BratAnnotation> spliterator = Spliterators.spliteratorUnknownSize(iterator(),
+        Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(() -> {
+      try {
+        close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Parses one non-empty line of the brat standoff format.
+   *
+   * @param line the line, a string or a view of the line that is only read during the call
+   * @param symbols the symbol table, or null
+   * @return the annotation represented by the line
+   */
+  static BratAnnotation parseLine(CharSequence line, BratSymbolTable symbols) {
+    char firstChar = line.charAt(0);
+    switch (firstChar) {
+    case 'T':
+      return BratEntity.parseEntity(line, symbols);
+    case 'E':
+      return BratEvent.parseEvent(line, symbols);
+    case 'R':
+      return BratRelation.parseRelation(line, symbols);
+    case '#':
+      return BratNote.parseNote(line, symbols);
+    case 'A':
+    case 'M':
+      return BratAttribute.parseAttribute(line, symbols);
+    case '*':
+      return BratEquivRelation.parseEquivRelation(line);
+    default:
+      throw new BratIllegalFormatException(String.format("Cannot parse line: %s", line));
+    }
+  }
+
   @Override
   public void close()
       throws IOException {
@@ -18,6 +18,12 @@ import com.pengyifan.brat.BratDocument;
 public class BratDocumentWriter implements Closeable {
 
   private BufferedWriter writer;
+  /**
+   * Reused buffers of the current line. Appending to a StringBuilder is much cheaper than
+   * appending every field and digit to the writer, which locks and checks bounds on each call.
+   */
+  private final StringBuilder line = new StringBuilder();
+  private char[] chars = new char[256];
 
   /**
    * Creates a brat document writer.
@@ -31,7 +37,14 @@ public class BratDocumentWriter implements Closeable {
   private <E extends BratAnnotation> void write(Collection<E> annotations)
       throws IOException {
     for (BratAnnotation annotation : annotations) {
-      writer.write(annotation.toBratString());
+      line.setLength(0);
+      annotation.appendTo(line);
+      int length = line.length();
+      if (chars.length < length) {
+        chars = new char[Math.max(length, chars.length * 2)];
+      }
+      line.getChars(0, length, chars, 0);
+      writer.write(chars, 0, length);
       writer.newLine();
     }
   }
@@ -2,6 +2,7 @@ package com.pengyifan.brat.io;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -76,4 +77,28 @@ public class BratIOUtils {
     w.write(doc);
     w.close();
   }
+
+  /**
+   * Rethrows the exception caught in a worker thread, unwrapping {@link UncheckedIOException}.
+   * Does nothing if the exception is null.
+   */
+  static void rethrow(Throwable e)
+      throws IOException {
+    if (e == null) {
+      return;
+    }
+    if (e instanceof IOException) {
+      throw (IOException) e;
+    }
+    if (e instanceof UncheckedIOException) {
+      throw ((UncheckedIOException) e).getCause();
+    }
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    throw new IOException(e);
+  }
 }
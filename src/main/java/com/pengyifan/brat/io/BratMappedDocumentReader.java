@@ -0,0 +1,249 @@
+package com.pengyifan.brat.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratSymbolTable;
+
+/**
+ * Reads the brat document from a UTF-8 file by memory-mapping it. Lines are found at the byte
+ * level. A line that is pure ASCII, the common case, is not decoded: the parsers of
+ * {@link BratDocumentReader} scan its TAB-separated columns and fields directly in the mapped
+ * bytes, parse offsets from the bytes, and copy out only the fields they keep. A line with other
+ * bytes is decoded as UTF-8 first. Both readers therefore accept the same format, report the
+ * same errors and support the same options.
+ * <p>
+ * The file is mapped in windows, so files larger than 2GB can be read as long as every line
+ * fits in one window. Lines are terminated by LF, CRLF or CR, as in
+ * {@link java.io.LineNumberReader}. Java has no public API to unmap a file, so a window stays
+ * mapped until its buffer is garbage-collected, even after this reader is closed. The reader
+ * drops each window as soon as it moves on to the next one.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratMappedDocumentReader implements Closeable {
+
+  private static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+  private final FileChannel channel;
+  private final String docId;
+  private final String text;
+  private final int windowSize;
+  private BratSymbolTable symbols;
+  private boolean sharedEntityText;
+  private final BratDiagnosticLog log = new BratDiagnosticLog();
+
+  private final BratByteLine byteLine = new BratByteLine();
+
+  /**
+   * Creates a memory-mapped brat document reader.
+   *
+   * @param file the file to read
+   * @throws IOException in case of an I/O error
+   */
+  public BratMappedDocumentReader(Path file)
+      throws IOException {
+    this(file, null, null);
+  }
+
+  /**
+   * Creates a memory-mapped brat document reader with specified document id.
+   *
+   * @param file  the file to read
+   * @param docId document id
+   * @throws IOException in case of an I/O error
+   */
+  public BratMappedDocumentReader(Path file, String docId)
+      throws IOException {
+    this(file, docId, null);
+  }
+
+  /**
+   * Creates a memory-mapped brat document reader with specified document id and text.
+   *
+   * @param file  the file to read
+   * @param docId document id
+   * @param text  the text
+   * @throws IOException in case of an I/O error
+   */
+  public BratMappedDocumentReader(Path file, String docId, String text)
+      throws IOException {
+    this(file, docId, text, DEFAULT_WINDOW_SIZE);
+  }
+
+  BratMappedDocumentReader(Path file, String docId, String text, int windowSize)
+      throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    this.docId = docId;
+    this.text = text;
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Sets the symbol table to intern annotation types, argument roles and attribute flags with.
+   * Readers of the same corpus can share one table. By default nothing is interned.
+   *
+   * @param symbols the symbol table, or null
+   * @since 1.3.0
+   */
+  public void setSymbolTable(BratSymbolTable symbols) {
+    this.symbols = symbols;
+  }
+
+  /**
+   * Sets whether the entities of the documents read share the text of the document instead of
+   * storing their own copy. It only takes effect if the reader has the document text.
+   *
+   * @param sharedEntityText true if entities share the document text
+   * @see BratDocumentReader#setSharedEntityText(boolean)
+   */
+  public void setSharedEntityText(boolean sharedEntityText) {
+    this.sharedEntityText = sharedEntityText;
+  }
+
+  /**
+   * Sets whether malformed lines and lines with a duplicated ID are skipped by {@link #read()},
+   * instead of stopping the reading.
+   *
+   * @param lenient true if bad lines are skipped
+   * @see BratDocumentReader#setLenient(boolean)
+   */
+  public void setLenient(boolean lenient) {
+    log.setLenient(lenient);
+  }
+
+  /**
+   * Sets the maximum number of diagnostics kept in lenient mode. Lines skipped after that are
+   * still counted. The default is 100.
+   *
+   * @param maxDiagnostics the maximum number of diagnostics
+   */
+  public void setMaxDiagnostics(int maxDiagnostics) {
+    log.setMaxDiagnostics(maxDiagnostics);
+  }
+
+  /**
+   * Returns the diagnostics of the lines skipped in lenient mode, in the order of the lines.
+   *
+   * @return the diagnostics of the skipped lines, at most the maximum number
+   */
+  public List<BratDiagnostic> getDiagnostics() {
+    return log.getDiagnostics();
+  }
+
+  /**
+   * Returns the number of lines skipped in lenient mode, including those beyond the maximum
+   * number of diagnostics.
+   *
+   * @return the number of skipped lines
+   */
+  public int getSkippedLineCount() {
+    return log.getSkippedLineCount();
+  }
+
+  /**
+   * Reads the brat document.
+   *
+   * @return the brat document
+   * @throws IOException in case of an I/O error
+   */
+  public BratDocument read()
+      throws IOException {
+    BratDocument doc = new BratDocument();
+    doc.setDocId(docId);
+    doc.setText(text);
+    doc.setSharedEntityText(sharedEntityText);
+    forEachLine((line, lineNumber) -> {
+      BratAnnotation ann;
+      try {
+        ann = BratDocumentReader.parseLine(line, symbols);
+      } catch (IllegalArgumentException e) {
+        log.skip(lineNumber, line, e);
+        return;
+      }
+      log.add(doc, ann, lineNumber, line);
+    });
+    return doc;
+  }
+
+  /**
+   * Reads the annotations and passes them to the handler one at a time, without building the
+   * brat document.
+   *
+   * @param handler the annotation handler
+   * @throws IOException in case of an I/O error
+   */
+  public void read(BratAnnotationHandler handler)
+      throws IOException {
+    forEachLine((line, lineNumber) -> {
+      BratAnnotation ann;
+      try {
+        ann = BratDocumentReader.parseLine(line, symbols);
+      } catch (IllegalArgumentException e) {
+        handler.onError(lineNumber, line.toString(), BratDiagnosticLog.asFormatException(e));
+        return;
+      }
+      BratDocumentReader.dispatch(ann, handler);
+    });
+  }
+
+  /**
+   * Passes every non-empty line and its line number to the action. The line is a view of the
+   * mapped bytes that is only valid during the call.
+   */
+  private void forEachLine(ObjIntConsumer<CharSequence> action)
+      throws IOException {
+    long size = channel.size();
+    long position = 0;
+    int lineNumber = 0;
+    while (position < size) {
+      int length = (int) Math.min(windowSize, size - position);
+      boolean lastWindow = position + length == size;
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      int start = 0;
+      while (start < length) {
+        int end = start;
+        // OR of all bytes of the line, negative if the line is not ASCII
+        int bits = 0;
+        byte b = 0;
+        while (end < length && (b = buffer.get(end)) != '\n' && b != '\r') {
+          bits |= b;
+          end++;
+        }
+        if (!lastWindow && (end == length || b == '\r' && end + 1 == length)) {
+          // the line, or its CRLF, continues in the next window
+          break;
+        }
+        lineNumber++;
+        if (end > start) {
+          byteLine.reset(buffer, start, end);
+          action.accept(bits < 0 ? byteLine.decode() : byteLine, lineNumber);
+        }
+        start = end + 1;
+        if (b == '\r' && start < length && buffer.get(start) == '\n') {
+          start++;
+        }
+      }
+      if (start == 0) {
+        throw new IOException(String.format("Line %d is longer than %d bytes",
+            lineNumber + 1, windowSize));
+      }
+      position += Math.min(start, length);
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    channel.close();
+  }
+}
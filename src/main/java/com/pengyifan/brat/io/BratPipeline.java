@@ -0,0 +1,495 @@
+package com.pengyifan.brat.io;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.pengyifan.brat.BratDocument;
+
+/**
+ * A streaming pipeline that passes items from a source through a chain of stages to a sink,
+ * without holding all items in memory. Every stage runs on its own worker threads, and stages
+ * are connected by bounded queues: a stage that falls behind blocks the stages before it. In
+ * addition, the number of items between the source and the sink is bounded by
+ * {@code maxInFlight}.
+ * <p>
+ * The sink is called from the thread running the pipeline, either in the order of the source
+ * (ordered) or as soon as items are done (unordered). A stage may return null to drop an item.
+ * <p>
+ * For example, to shift all entities of a corpus and write the documents to another directory:
+ *
+ * <pre>
+ * try (Stream&lt;Path&gt; files = BratCorpusReader.annFiles(inputDir)) {
+ *   BratPipeline.from(files.iterator())
+ *       .stage("read", 4, BratCorpusReader::readDocument)
+ *       .stage("shift", 2, doc -&gt; shift(doc))
+ *       .to(BratPipeline.writeTo(outputDir))
+ *       .run();
+ * }
+ * </pre>
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratPipeline {
+
+  /**
+   * A transformation applied by a pipeline stage.
+   *
+   * @param <T> the type of the input
+   * @param <R> the type of the output
+   */
+  @FunctionalInterface
+  public interface Stage<T, R> {
+
+    /**
+     * Transforms one item.
+     *
+     * @param t the input
+     * @return the output, or null to drop the item
+     * @throws IOException in case of an I/O error
+     */
+    R apply(T t)
+        throws IOException;
+  }
+
+  /**
+   * The end of a pipeline.
+   *
+   * @param <T> the type of the input
+   */
+  @FunctionalInterface
+  public interface Sink<T> {
+
+    /**
+     * Consumes one item.
+     *
+     * @param t the input
+     * @throws IOException in case of an I/O error
+     */
+    void accept(T t)
+        throws IOException;
+  }
+
+  /**
+   * Counts the items processed by the source, a stage or the sink, and the time spent on them.
+   */
+  public static final class Counter {
+
+    private final String name;
+    private final LongAdder count;
+    private final LongAdder nanos;
+
+    private Counter(String name) {
+      this.name = name;
+      this.count = new LongAdder();
+      this.nanos = new LongAdder();
+    }
+
+    private void add(long start) {
+      nanos.add(System.nanoTime() - start);
+      count.increment();
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return the name of the stage
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the number of items processed.
+     *
+     * @return the number of items processed
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Returns the time spent processing items, summed over all workers of the stage.
+     *
+     * @return the time spent in nanoseconds
+     */
+    public long getNanos() {
+      return nanos.sum();
+    }
+
+    /**
+     * Returns the number of items processed per second of processing time of one worker.
+     *
+     * @return the items per second
+     */
+    public double getThroughput() {
+      long n = getNanos();
+      return n == 0 ? 0 : getCount() * 1e9 / n;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %d items, %.1f items/s", name, getCount(), getThroughput());
+    }
+  }
+
+  /**
+   * Creates a pipeline builder reading from the iterator.
+   *
+   * @param source the source of the pipeline
+   * @param <T> the type of items
+   * @return the pipeline builder
+   */
+  public static <T> Builder<T> from(Iterator<? extends T> source) {
+    return new Builder<>(source);
+  }
+
+  /**
+   * Creates a pipeline builder reading from the iterable.
+   *
+   * @param source the source of the pipeline
+   * @param <T> the type of items
+   * @return the pipeline builder
+   */
+  public static <T> Builder<T> from(Iterable<? extends T> source) {
+    return new Builder<>(source.iterator());
+  }
+
+  /**
+   * Returns a sink that writes every document to {@code DOC.ann} in the directory, and its text,
+   * if any, to {@code DOC.txt}.
+   *
+   * @param dir the output directory
+   * @return the sink
+   */
+  public static Sink<BratDocument> writeTo(Path dir) {
+    return doc -> {
+      String docId = doc.getDocId();
+      checkNotNull(docId, "docId has to be set");
+      BratIOUtils.write(dir.resolve(docId + ".ann"), doc);
+      if (doc.getText() != null) {
+        Files.write(dir.resolve(docId + ".txt"), doc.getText().getBytes(StandardCharsets.UTF_8));
+      }
+    };
+  }
+
+  /**
+   * Builds a pipeline.
+   *
+   * @param <T> the type of items produced by the last stage
+   */
+  public static final class Builder<T> {
+
+    private final Iterator<?> source;
+    private final List<StageWorkers> stages;
+    private int queueCapacity;
+    private int maxInFlight;
+    private boolean ordered;
+
+    private Builder(Iterator<?> source) {
+      this.source = checkNotNull(source, "source has to be set");
+      this.stages = Lists.newArrayList();
+      this.queueCapacity = 32;
+      this.maxInFlight = 256;
+      this.ordered = true;
+    }
+
+    /**
+     * Appends a stage.
+     *
+     * @param name the name of the stage
+     * @param parallelism the number of worker threads of the stage
+     * @param stage the transformation
+     * @param <R> the type of items produced by the stage
+     * @return this builder
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Builder<R> stage(String name, int parallelism, Stage<? super T, ? extends R> stage) {
+      checkNotNull(name, "name has to be set");
+      checkNotNull(stage, "stage has to be set");
+      checkArgument(parallelism > 0, "parallelism has to be positive: %s", parallelism);
+      stages.add(new StageWorkers(name, parallelism, (Stage<Object, Object>) stage));
+      return (Builder<R>) this;
+    }
+
+    /**
+     * Sets the capacity of the queue in front of every stage and the sink. The default is 32.
+     *
+     * @param queueCapacity the queue capacity
+     * @return this builder
+     */
+    public Builder<T> queueCapacity(int queueCapacity) {
+      checkArgument(queueCapacity > 0, "queueCapacity has to be positive: %s", queueCapacity);
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of items between the source and the sink. The default is 256.
+     *
+     * @param maxInFlight the maximum number of items in flight
+     * @return this builder
+     */
+    public Builder<T> maxInFlight(int maxInFlight) {
+      checkArgument(maxInFlight > 0, "maxInFlight has to be positive: %s", maxInFlight);
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Sets whether the sink receives items in the order of the source. The default is true.
+     *
+     * @param ordered true if the order of the source is kept
+     * @return this builder
+     */
+    public Builder<T> ordered(boolean ordered) {
+      this.ordered = ordered;
+      return this;
+    }
+
+    /**
+     * Ends the pipeline with the sink.
+     *
+     * @param sink the sink
+     * @return the pipeline
+     */
+    @SuppressWarnings("unchecked")
+    public BratPipeline to(Sink<? super T> sink) {
+      checkNotNull(sink, "sink has to be set");
+      return new BratPipeline(this, (Sink<Object>) sink);
+    }
+  }
+
+  private static final class StageWorkers {
+
+    private final int parallelism;
+    private final Stage<Object, Object> stage;
+    private final Counter counter;
+
+    StageWorkers(String name, int parallelism, Stage<Object, Object> stage) {
+      this.parallelism = parallelism;
+      this.stage = stage;
+      this.counter = new Counter(name);
+    }
+  }
+
+  private static final class Item {
+
+    private final long seq;
+    private final Object value;
+
+    Item(long seq, Object value) {
+      this.seq = seq;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Marks the end of the items.
+   */
+  private static final Item END = new Item(-1, null);
+
+  private static final long POLL_MILLIS = 100;
+
+  private final Iterator<?> source;
+  private final List<StageWorkers> stages;
+  private final Sink<Object> sink;
+  private final int queueCapacity;
+  private final int maxInFlight;
+  private final boolean ordered;
+  private final Counter sourceCounter;
+  private final Counter sinkCounter;
+  private final AtomicBoolean started;
+
+  private BratPipeline(Builder<?> builder, Sink<Object> sink) {
+    this.source = builder.source;
+    this.stages = Lists.newArrayList(builder.stages);
+    this.sink = sink;
+    this.queueCapacity = builder.queueCapacity;
+    this.maxInFlight = builder.maxInFlight;
+    this.ordered = builder.ordered;
+    this.sourceCounter = new Counter("source");
+    this.sinkCounter = new Counter("sink");
+    this.started = new AtomicBoolean();
+  }
+
+  /**
+   * Returns the counters of the source, every stage and the sink, in this order.
+   *
+   * @return the counters
+   */
+  public List<Counter> getCounters() {
+    List<Counter> counters = Lists.newArrayList();
+    counters.add(sourceCounter);
+    stages.forEach(s -> counters.add(s.counter));
+    counters.add(sinkCounter);
+    return Collections.unmodifiableList(counters);
+  }
+
+  /**
+   * Runs the pipeline until all items of the source have reached the sink. A pipeline can only
+   * be run once.
+   * <p>
+   * If the source, a stage or the sink throws an exception, the pipeline is stopped and the
+   * first exception is rethrown.
+   *
+   * @throws IOException in case of an I/O error
+   */
+  public void run()
+      throws IOException {
+    checkState(started.compareAndSet(false, true), "pipeline can only be run once");
+
+    List<BlockingQueue<Item>> queues = Lists.newArrayList();
+    int threads = 1;
+    for (StageWorkers s : stages) {
+      queues.add(new ArrayBlockingQueue<>(queueCapacity));
+      threads += s.parallelism;
+    }
+    queues.add(new ArrayBlockingQueue<>(queueCapacity));
+
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("brat-pipeline-%d").setDaemon(true).build());
+    try {
+      executor.execute(() -> feed(queues.get(0), consumers(0), inFlight, error));
+      for (int i = 0; i < stages.size(); i++) {
+        StageWorkers s = stages.get(i);
+        BlockingQueue<Item> in = queues.get(i);
+        BlockingQueue<Item> out = queues.get(i + 1);
+        int consumers = consumers(i + 1);
+        AtomicInteger remaining = new AtomicInteger(s.parallelism);
+        for (int j = 0; j < s.parallelism; j++) {
+          executor.execute(() -> work(s, in, out, remaining, consumers, error));
+        }
+      }
+      drain(queues.get(stages.size()), inFlight, error);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while running the pipeline");
+    } finally {
+      executor.shutdownNow();
+    }
+    BratIOUtils.rethrow(error.get());
+  }
+
+  /**
+   * Returns the number of workers taking items from the i-th queue.
+   */
+  private int consumers(int i) {
+    return i < stages.size() ? stages.get(i).parallelism : 1;
+  }
+
+  private void feed(BlockingQueue<Item> out, int consumers, Semaphore inFlight,
+      AtomicReference<Throwable> error) {
+    try {
+      long seq = 0;
+      while (error.get() == null) {
+        inFlight.acquire();
+        long start = System.nanoTime();
+        if (!source.hasNext()) {
+          break;
+        }
+        Object value = source.next();
+        sourceCounter.add(start);
+        out.put(new Item(seq++, value));
+      }
+      for (int i = 0; i < consumers; i++) {
+        out.put(END);
+      }
+    } catch (InterruptedException e) {
+      // the pipeline is stopped
+    } catch (Throwable e) {
+      error.compareAndSet(null, e);
+    }
+  }
+
+  private static void work(StageWorkers s, BlockingQueue<Item> in, BlockingQueue<Item> out,
+      AtomicInteger remaining, int consumers, AtomicReference<Throwable> error) {
+    try {
+      while (true) {
+        Item item = in.take();
+        if (item == END) {
+          // the last worker of the stage passes the end on
+          if (remaining.decrementAndGet() == 0) {
+            for (int i = 0; i < consumers; i++) {
+              out.put(END);
+            }
+          }
+          return;
+        }
+        Object result = null;
+        if (item.value != null) {
+          long start = System.nanoTime();
+          result = s.stage.apply(item.value);
+          s.counter.add(start);
+        }
+        out.put(new Item(item.seq, result));
+      }
+    } catch (InterruptedException e) {
+      // the pipeline is stopped
+    } catch (Throwable e) {
+      error.compareAndSet(null, e);
+    }
+  }
+
+  private void drain(BlockingQueue<Item> in, Semaphore inFlight,
+      AtomicReference<Throwable> error)
+      throws IOException, InterruptedException {
+    // items that are done but wait for an earlier item, keyed by sequence number
+    Map<Long, Item> pending = Maps.newHashMap();
+    long next = 0;
+    while (error.get() == null) {
+      Item item = in.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if (item == null) {
+        continue;
+      }
+      if (item == END) {
+        return;
+      }
+      if (!ordered) {
+        emit(item, inFlight);
+        continue;
+      }
+      pending.put(item.seq, item);
+      while ((item = pending.remove(next)) != null) {
+        emit(item, inFlight);
+        next++;
+      }
+    }
+  }
+
+  private void emit(Item item, Semaphore inFlight)
+      throws IOException {
+    if (item.value != null) {
+      long start = System.nanoTime();
+      sink.accept(item.value);
+      sinkCounter.add(start);
+    }
+    inFlight.release();
+  }
+}
@@ -0,0 +1,248 @@
+package com.pengyifan.brat.io;
+
+import static com.pengyifan.brat.io.BratSnapshotWriter.ATTRIBUTE;
+import static com.pengyifan.brat.io.BratSnapshotWriter.ENTITY;
+import static com.pengyifan.brat.io.BratSnapshotWriter.EQUIV_RELATION;
+import static com.pengyifan.brat.io.BratSnapshotWriter.EVENT;
+import static com.pengyifan.brat.io.BratSnapshotWriter.MAGIC;
+import static com.pengyifan.brat.io.BratSnapshotWriter.NOTE;
+import static com.pengyifan.brat.io.BratSnapshotWriter.RELATION;
+import static com.pengyifan.brat.io.BratSnapshotWriter.VERSION;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.BratNote;
+import com.pengyifan.brat.BratRelation;
+
+/**
+ * Reads brat documents from a binary snapshot written by {@link BratSnapshotWriter}.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratSnapshotReader implements Closeable {
+
+  private final InputStream in;
+  private final byte[] buffer;
+  private int pos;
+  private int limit;
+
+  private byte[] scratch;
+  private String[] strings;
+
+  /**
+   * Creates a snapshot reader and checks the snapshot header.
+   *
+   * @param in the input stream
+   * @throws IOException if the stream is not a snapshot of a supported version, or in case of
+   *         an I/O error
+   */
+  public BratSnapshotReader(InputStream in)
+      throws IOException {
+    this.in = in;
+    this.buffer = new byte[1 << 16];
+    this.scratch = new byte[256];
+    this.strings = new String[64];
+    for (byte b : MAGIC) {
+      if (readByte() != b) {
+        throw new IOException("Not a brat snapshot");
+      }
+    }
+    int version = readVarInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported snapshot version: " + version);
+    }
+  }
+
+  /**
+   * Reads the next brat document.
+   *
+   * @return the brat document, or null if the end of the snapshot has been reached
+   * @throws IOException in case of an I/O error
+   */
+  public BratDocument read()
+      throws IOException {
+    if (pos == limit && !fill()) {
+      return null;
+    }
+
+    BratDocument doc = new BratDocument();
+    doc.setDocId(readNullableString());
+    doc.setText(readNullableString());
+
+    int stringCount = readVarInt();
+    if (strings.length < stringCount) {
+      strings = new String[Math.max(stringCount, strings.length * 2)];
+    }
+    for (int i = 0; i < stringCount; i++) {
+      strings[i] = readString(readVarInt());
+    }
+
+    int annotationCount = readVarInt();
+    for (int i = 0; i < annotationCount; i++) {
+      doc.addAnnotation(readAnnotation());
+    }
+    Arrays.fill(strings, 0, stringCount, null);
+    return doc;
+  }
+
+  private BratAnnotation readAnnotation()
+      throws IOException {
+    int kind = readByte();
+    switch (kind) {
+    case ENTITY: {
+      BratEntity entity = new BratEntity();
+      entity.setId(readRef());
+      entity.setType(readRef());
+      int spanCount = readVarInt();
+      int last = 0;
+      for (int i = 0; i < spanCount; i++) {
+        int start = last + readVarInt();
+        int end = start + readVarInt();
+        entity.addSpan(start, end);
+        last = end;
+      }
+      entity.setText(readRef());
+      return entity;
+    }
+    case RELATION: {
+      BratRelation relation = new BratRelation();
+      relation.setId(readRef());
+      relation.setType(readRef());
+      int argCount = readVarInt();
+      for (int i = 0; i < argCount; i++) {
+        relation.putArgument(readRef(), readRef());
+      }
+      return relation;
+    }
+    case EVENT: {
+      BratEvent event = new BratEvent();
+      event.setId(readRef());
+      event.setType(readRef());
+      event.setTriggerId(readRef());
+      int argCount = readVarInt();
+      for (int i = 0; i < argCount; i++) {
+        event.putArgument(readRef(), readRef());
+      }
+      return event;
+    }
+    case ATTRIBUTE: {
+      BratAttribute attribute = new BratAttribute();
+      attribute.setId(readRef());
+      attribute.setType(readRef());
+      attribute.setRefId(readRef());
+      int count = readVarInt();
+      for (int i = 0; i < count; i++) {
+        attribute.addAttribute(readRef());
+      }
+      return attribute;
+    }
+    case EQUIV_RELATION: {
+      BratEquivRelation relation = new BratEquivRelation();
+      int count = readVarInt();
+      for (int i = 0; i < count; i++) {
+        relation.addArgId(readRef());
+      }
+      return relation;
+    }
+    case NOTE: {
+      BratNote note = new BratNote();
+      note.setId(readRef());
+      note.setType(readRef());
+      note.setRefId(readRef());
+      note.setText(readRef());
+      return note;
+    }
+    default:
+      throw new IOException("Unknown annotation kind: " + kind);
+    }
+  }
+
+  private String readRef()
+      throws IOException {
+    int ref = readVarInt();
+    return ref == 0 ? null : strings[ref - 1];
+  }
+
+  private String readNullableString()
+      throws IOException {
+    int length = readVarInt();
+    return length == 0 ? null : readString(length - 1);
+  }
+
+  private String readString(int length)
+      throws IOException {
+    if (length <= limit - pos) {
+      String s = new String(buffer, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return s;
+    }
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    int n = 0;
+    while (n < length) {
+      if (pos == limit && !fill()) {
+        throw new EOFException();
+      }
+      int k = Math.min(length - n, limit - pos);
+      System.arraycopy(buffer, pos, scratch, n, k);
+      pos += k;
+      n += k;
+    }
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private int readVarInt()
+      throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = readByte();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private int readByte()
+      throws IOException {
+    if (pos == limit && !fill()) {
+      throw new EOFException();
+    }
+    return buffer[pos++] & 0xff;
+  }
+
+  /**
+   * Refills the buffer. Returns false at the end of the stream.
+   */
+  private boolean fill()
+      throws IOException {
+    int n = in.read(buffer, 0, buffer.length);
+    if (n <= 0) {
+      pos = limit = 0;
+      return false;
+    }
+    pos = 0;
+    limit = n;
+    return true;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,234 @@
+package com.pengyifan.brat.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.BratNote;
+import com.pengyifan.brat.BratRelation;
+
+/**
+ * Writes brat documents in a compact binary snapshot format, which {@link BratSnapshotReader}
+ * loads much faster than the standoff format. Any number of documents can be written to one
+ * snapshot, e.g., a whole corpus.
+ * <p>
+ * The stream starts with the magic bytes {@code BRAT} and the format version. Every document
+ * then consists of
+ *
+ * <pre>
+ * docId text
+ * STRING_COUNT STRING ...
+ * ANNOTATION_COUNT ANNOTATION ...
+ * </pre>
+ *
+ * All integers are unsigned LEB128 varints. IDs, types, roles, references and annotation texts
+ * are stored once in the per-document string table and referenced by index + 1 (0 is null).
+ * Every annotation starts with its kind, and annotations are written in the order they were
+ * added to the document. Span offsets are delta-encoded: each start relative to the previous
+ * end, and each end relative to its start.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratSnapshotWriter implements Closeable {
+
+  static final byte[] MAGIC = { 'B', 'R', 'A', 'T' };
+  static final int VERSION = 1;
+
+  static final int ENTITY = 0;
+  static final int RELATION = 1;
+  static final int EVENT = 2;
+  static final int ATTRIBUTE = 3;
+  static final int EQUIV_RELATION = 4;
+  static final int NOTE = 5;
+
+  private final OutputStream out;
+  private final ByteArrayOutputStream body;
+  private final Map<String, Integer> table;
+  private final List<String> strings;
+
+  /**
+   * Creates a snapshot writer and writes the snapshot header.
+   *
+   * @param out the output stream
+   * @throws IOException If an I/O error occurs
+   */
+  public BratSnapshotWriter(OutputStream out)
+      throws IOException {
+    this.out = new BufferedOutputStream(out, 1 << 16);
+    this.body = new ByteArrayOutputStream(1 << 16);
+    this.table = Maps.newHashMap();
+    this.strings = Lists.newArrayList();
+    this.out.write(MAGIC);
+    writeVarInt(this.out, VERSION);
+  }
+
+  /**
+   * Writes the brat document.
+   *
+   * @param doc the brat document
+   * @throws IOException If an I/O error occurs
+   */
+  public void write(BratDocument doc)
+      throws IOException {
+    table.clear();
+    strings.clear();
+    body.reset();
+
+    List<BratAnnotation> annotations = doc.getAnnotations();
+    writeVarInt(body, annotations.size());
+    for (BratAnnotation ann : annotations) {
+      writeAnnotation(ann);
+    }
+
+    writeNullableString(doc.getDocId());
+    writeNullableString(doc.getText());
+    writeVarInt(out, strings.size());
+    for (String s : strings) {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(out, bytes.length);
+      out.write(bytes);
+    }
+    body.writeTo(out);
+  }
+
+  private void writeAnnotation(BratAnnotation ann) {
+    if (ann instanceof BratEntity) {
+      BratEntity entity = (BratEntity) ann;
+      body.write(ENTITY);
+      writeRef(entity.getId());
+      writeRef(entity.getType());
+      writeVarInt(body, entity.getSpanCount());
+      int last = 0;
+      for (int i = 0; i < entity.getSpanCount(); i++) {
+        int start = entity.getSpanStart(i);
+        int end = entity.getSpanEnd(i);
+        writeVarInt(body, start - last);
+        writeVarInt(body, end - start);
+        last = end;
+      }
+      writeRef(entity.getText());
+    } else if (ann instanceof BratEvent) {
+      BratEvent event = (BratEvent) ann;
+      body.write(EVENT);
+      writeRef(event.getId());
+      writeRef(event.getType());
+      writeRef(event.getTriggerId());
+      writeArguments(event.getArguments());
+    } else if (ann instanceof BratRelation) {
+      BratRelation relation = (BratRelation) ann;
+      body.write(RELATION);
+      writeRef(relation.getId());
+      writeRef(relation.getType());
+      writeArguments(relation.getArguments());
+    } else if (ann instanceof BratAttribute) {
+      BratAttribute attribute = (BratAttribute) ann;
+      body.write(ATTRIBUTE);
+      writeRef(attribute.getId());
+      writeRef(attribute.getType());
+      writeRef(attribute.getRefId());
+      writeVarInt(body, attribute.getAttributes().size());
+      attribute.getAttributes().forEach(this::writeRef);
+    } else if (ann instanceof BratEquivRelation) {
+      BratEquivRelation relation = (BratEquivRelation) ann;
+      body.write(EQUIV_RELATION);
+      writeVarInt(body, relation.getArgIds().size());
+      relation.getArgIds().forEach(this::writeRef);
+    } else if (ann instanceof BratNote) {
+      BratNote note = (BratNote) ann;
+      body.write(NOTE);
+      writeRef(note.getId());
+      writeRef(note.getType());
+      writeRef(note.getRefId());
+      writeRef(note.getText());
+    } else {
+      throw new IllegalArgumentException("Cannot write annotation: " + ann);
+    }
+  }
+
+  private void writeArguments(Map<String, String> arguments) {
+    writeVarInt(body, arguments.size());
+    arguments.forEach((role, argId) -> {
+      writeRef(role);
+      writeRef(argId);
+    });
+  }
+
+  /**
+   * Writes the index + 1 of the string in the string table, or 0 for null.
+   */
+  private void writeRef(String s) {
+    if (s == null) {
+      writeVarInt(body, 0);
+      return;
+    }
+    Integer index = table.get(s);
+    if (index == null) {
+      index = strings.size();
+      table.put(s, index);
+      strings.add(s);
+    }
+    writeVarInt(body, index + 1);
+  }
+
+  /**
+   * Writes the length + 1 of the string and its UTF-8 bytes, or 0 for null.
+   */
+  private void writeNullableString(String s)
+      throws IOException {
+    if (s == null) {
+      writeVarInt(out, 0);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length + 1);
+    out.write(bytes);
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static void writeVarInt(OutputStream out, int value)
+      throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /**
+   * Flushes the stream.
+   *
+   * @throws IOException If an I/O error occurs
+   */
+  public void flush()
+      throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    out.flush();
+    out.close();
+  }
+}
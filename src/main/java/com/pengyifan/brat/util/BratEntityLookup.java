@@ -0,0 +1,131 @@
+package com.pengyifan.brat.util;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+
+/**
+ * An immutable hash table from the total span of entities to the entities. The span [begin, end)
+ * is packed into one long key, and the table uses open addressing over primitive arrays, so
+ * {@link #get(int, int)} neither boxes nor allocates.
+ * <p>
+ * Build it once per document, for example to align predicted mentions to gold entities. Lookups
+ * may run concurrently. Use {@link BratEntitySpanIndex} for overlap and containment queries.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratEntityLookup {
+
+  private final BratEntity[] entities;
+  /**
+   * next[i] is the index of the next entity with the same span as entities[i], or -1
+   */
+  private final int[] next;
+  private final long[] keys;
+  /**
+   * index of the first entity with keys[slot] plus one, 0 if the slot is empty
+   */
+  private final int[] heads;
+  private final int mask;
+
+  /**
+   * Creates a lookup over all entities of the document.
+   *
+   * @param doc the brat document
+   */
+  public BratEntityLookup(BratDocument doc) {
+    this(doc.getEntities());
+  }
+
+  /**
+   * Creates a lookup over the specified entities. Entities without spans are ignored.
+   *
+   * @param entities entities to be looked up
+   */
+  public BratEntityLookup(Collection<BratEntity> entities) {
+    this.entities = entities.stream()
+        .filter(entity -> entity.getSpanCount() > 0)
+        .toArray(BratEntity[]::new);
+    int capacity = Integer.highestOneBit(Math.max(this.entities.length, 4) * 2 - 1) << 1;
+    mask = capacity - 1;
+    keys = new long[capacity];
+    heads = new int[capacity];
+    next = new int[this.entities.length];
+    // add in reverse order so that chains are in the order the entities were given
+    for (int i = this.entities.length - 1; i >= 0; i--) {
+      BratEntity entity = this.entities[i];
+      long key = key(entity.beginPosition(), entity.endPosition());
+      int slot = slot(key);
+      next[i] = heads[slot] - 1;
+      keys[slot] = key;
+      heads[slot] = i + 1;
+    }
+  }
+
+  private static long key(int begin, int end) {
+    return ((long) begin << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the slot holding the key, or the empty slot where it would be inserted.
+   */
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (h ^ (h >>> 32)) & mask;
+    while (heads[slot] != 0 && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the first entity whose total span is [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return the first entity with the span, or null if there is none
+   */
+  public BratEntity get(int begin, int end) {
+    int head = heads[slot(key(begin, end))];
+    return head == 0 ? null : entities[head - 1];
+  }
+
+  /**
+   * Returns all entities whose total span is [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return entities with the span, in the order they were given
+   */
+  public List<BratEntity> getAll(int begin, int end) {
+    List<BratEntity> result = Lists.newArrayList();
+    for (int i = heads[slot(key(begin, end))] - 1; i != -1; i = next[i]) {
+      result.add(entities[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if an entity has the total span [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return true if an entity has the span
+   */
+  public boolean contains(int begin, int end) {
+    return heads[slot(key(begin, end))] != 0;
+  }
+
+  /**
+   * Returns the number of entities in this lookup.
+   *
+   * @return the number of entities
+   */
+  public int size() {
+    return entities.length;
+  }
+}
@@ -0,0 +1,276 @@
+package com.pengyifan.brat.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+
+/**
+ * An interval tree over the spans of entities. It answers point, overlap, containment and
+ * exact-match queries in O(log n + k), where n is the number of spans and k the number of
+ * spans reported.
+ * <p>
+ * Every span of a discontinuous entity is indexed separately, so that an entity only overlaps
+ * a range if one of its spans does. The tree is rebuilt lazily on the first query after
+ * entities have been added. Queries may run concurrently, but not concurrently with
+ * {@link #add(BratEntity)}. Spans of an entity should not be changed after it has been added.
+ *
+ * @since 1.3.0
+ * @author "Yifan Peng"
+ */
+public class BratEntitySpanIndex {
+
+  private final List<BratEntity> entities;
+  /**
+   * Spans sorted by start offset after build. owners[i] is the index of the entity in entities.
+   */
+  private int[] starts;
+  private int[] ends;
+  private int[] owners;
+  /**
+   * maxEnds[i] is the max end offset of the subtree rooted at i.
+   */
+  private int[] maxEnds;
+  private int size;
+  private boolean dirty;
+
+  public BratEntitySpanIndex() {
+    entities = Lists.newArrayList();
+    starts = new int[16];
+    ends = new int[16];
+    owners = new int[16];
+    maxEnds = new int[0];
+  }
+
+  /**
+   * Creates an index over the specified entities.
+   *
+   * @param entities entities to be indexed
+   */
+  public BratEntitySpanIndex(Collection<BratEntity> entities) {
+    this();
+    entities.forEach(this::add);
+  }
+
+  /**
+   * Creates an index over all entities of the document.
+   *
+   * @param doc the brat document
+   */
+  public BratEntitySpanIndex(BratDocument doc) {
+    this(doc.getEntities());
+  }
+
+  /**
+   * Adds one entity to this index.
+   *
+   * @param entity entity to be indexed
+   */
+  public synchronized void add(BratEntity entity) {
+    int owner = entities.size();
+    entities.add(entity);
+    for (int i = 0; i < entity.getSpanCount(); i++) {
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+        owners = Arrays.copyOf(owners, size * 2);
+      }
+      starts[size] = entity.getSpanStart(i);
+      ends[size] = entity.getSpanEnd(i);
+      owners[size] = owner;
+      size++;
+    }
+    dirty = true;
+  }
+
+  /**
+   * Returns the number of indexed entities.
+   *
+   * @return the number of indexed entities
+   */
+  public synchronized int size() {
+    return entities.size();
+  }
+
+  /**
+   * Returns entities having a span that contains the offset.
+   *
+   * @param offset character offset
+   * @return entities covering the offset, in the order they were added
+   */
+  public List<BratEntity> getEntitiesAt(int offset) {
+    return getOverlapping(offset, offset + 1);
+  }
+
+  /**
+   * Returns entities having a span that overlaps [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return entities overlapping the range, in the order they were added
+   */
+  public List<BratEntity> getOverlapping(int begin, int end) {
+    return query(begin, end, Query.OVERLAP);
+  }
+
+  /**
+   * Returns entities whose spans all lie within [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return entities enclosed by the range, in the order they were added
+   */
+  public List<BratEntity> getEnclosed(int begin, int end) {
+    return query(begin, end, Query.ENCLOSED);
+  }
+
+  /**
+   * Returns entities having a span that contains [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return entities enclosing the range, in the order they were added
+   */
+  public List<BratEntity> getEnclosing(int begin, int end) {
+    return query(begin, end, Query.ENCLOSING);
+  }
+
+  /**
+   * Returns entities whose total span is exactly [begin, end).
+   *
+   * @param begin the beginning offset, inclusive
+   * @param end the ending offset, exclusive
+   * @return entities matching the range, in the order they were added
+   */
+  public List<BratEntity> getExact(int begin, int end) {
+    if (begin >= end) {
+      return Lists.newArrayList();
+    }
+    // the first span of a matching entity starts at begin
+    return query(begin, begin + 1, Query.EXACT, begin, end);
+  }
+
+  private enum Query {
+    OVERLAP, ENCLOSED, ENCLOSING, EXACT
+  }
+
+  private List<BratEntity> query(int begin, int end, Query query) {
+    return query(begin, end, query, begin, end);
+  }
+
+  private List<BratEntity> query(int begin, int end, Query query, int rangeBegin, int rangeEnd) {
+    List<BratEntity> result = Lists.newArrayList();
+    if (begin >= end) {
+      return result;
+    }
+    ensureBuilt();
+    IntList found = new IntList();
+    search(0, size, begin, end, found);
+    Arrays.sort(found.data, 0, found.size);
+    int last = -1;
+    for (int i = 0; i < found.size; i++) {
+      int owner = found.data[i];
+      if (owner == last) {
+        continue;
+      }
+      last = owner;
+      BratEntity entity = entities.get(owner);
+      if (accept(entity, query, rangeBegin, rangeEnd)) {
+        result.add(entity);
+      }
+    }
+    return result;
+  }
+
+  private static boolean accept(BratEntity entity, Query query, int begin, int end) {
+    switch (query) {
+    case ENCLOSED:
+      return entity.beginPosition() >= begin && entity.endPosition() <= end;
+    case ENCLOSING:
+      for (int i = 0; i < entity.getSpanCount(); i++) {
+        if (entity.getSpanStart(i) <= begin && entity.getSpanEnd(i) >= end) {
+          return true;
+        }
+      }
+      return false;
+    case EXACT:
+      return entity.beginPosition() == begin && entity.endPosition() == end;
+    default:
+      return true;
+    }
+  }
+
+  /**
+   * Collects owners of spans in [lo, hi) overlapping [begin, end) into found.
+   */
+  private void search(int lo, int hi, int begin, int end, IntList found) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (maxEnds[mid] <= begin) {
+        // no span in this subtree ends after begin
+        return;
+      }
+      search(lo, mid, begin, end, found);
+      if (starts[mid] >= end) {
+        // spans in the right subtree start even later
+        return;
+      }
+      if (ends[mid] > begin) {
+        found.add(owners[mid]);
+      }
+      lo = mid + 1;
+    }
+  }
+
+  private synchronized void ensureBuilt() {
+    if (!dirty) {
+      return;
+    }
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = ((long) starts[i] << 32) | i;
+    }
+    Arrays.sort(keys);
+    int[] newStarts = new int[size];
+    int[] newEnds = new int[size];
+    int[] newOwners = new int[size];
+    for (int i = 0; i < size; i++) {
+      int j = (int) keys[i];
+      newStarts[i] = starts[j];
+      newEnds[i] = ends[j];
+      newOwners[i] = owners[j];
+    }
+    System.arraycopy(newStarts, 0, starts, 0, size);
+    System.arraycopy(newEnds, 0, ends, 0, size);
+    System.arraycopy(newOwners, 0, owners, 0, size);
+    maxEnds = new int[size];
+    buildMaxEnds(0, size);
+    dirty = false;
+  }
+
+  private int buildMaxEnds(int lo, int hi) {
+    if (lo >= hi) {
+      return Integer.MIN_VALUE;
+    }
+    int mid = (lo + hi) >>> 1;
+    int max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+    maxEnds[mid] = max;
+    return max;
+  }
+
+  private static class IntList {
+
+    private int[] data = new int[8];
+    private int size;
+
+    void add(int value) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = value;
+    }
+  }
+}
@@ -2,12 +2,29 @@ package com.pengyifan.brat.util;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import org.apache.commons.collections4.Equator;
-
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
+import com.pengyifan.brat.BratAnnotation;
 import com.pengyifan.brat.BratBaseRelation;
 import com.pengyifan.brat.BratDocument;
 import com.pengyifan.brat.BratEntity;
@@ -18,314 +35,391 @@ import com.pengyifan.brat.BratRelation;
 
 /**
  * Merge brat documents into one. Reset IDs for all annotations.
- * 
- * Cannot handle recursive annotations
+ * <p>
+ * Entities are the same if they have the same total span. Events and relations are the same if
+ * they have the same type and their arguments are the same entities for the same roles (the
+ * trigger of an event is not compared). Equivalence relations that share an entity, directly or
+ * transitively, are collapsed into one equivalence relation holding the whole cluster. Notes are
+ * the same if they refer to the same annotation and have the same type and text. Every
+ * annotation is looked up in a hash map by these keys, so merging takes time linear in the total
+ * number of annotations.
+ * <p>
+ * Arguments of events and relations may be events or relations themselves. Events and relations
+ * are merged in dependency order (arguments before the annotations referring to them), and the
+ * structure of every event and relation is interned to a number, so that nested annotations are
+ * compared in constant time instead of being compared recursively. Cyclic references are
+ * rejected. Members of equivalence relations still have to be entities.
+ * <p>
+ * The keys of a document only depend on the document itself, so {@link #addDocuments} computes
+ * them for all documents in parallel. New IDs are then assigned one document at a time, in the
+ * order the documents are given, so the result is the same as adding them one by one. For every
+ * merged annotation, the merge records which source documents it came from.
  */
 public class BratMerge {
 
   private BratDocument newDoc;
-  private final BratEntityEquator entityEquator = new BratEntityEquator();
+  private int sourceCount;
+
+  /**
+   * total span of entity --> new entity
+   */
+  private final Map<Long, BratEntity> entities;
+  private final Structures structures;
+  /**
+   * structure id of event --> new event
+   */
+  private final Map<Integer, BratEvent> events;
+  /**
+   * structure id of relation --> new relation
+   */
+  private final Map<Integer, BratRelation> relations;
+  /**
+   * key of the referred annotation, type and text --> new note
+   */
+  private final Map<String, BratNote> notes;
+  /**
+   * new annotation --> source index --> old ids
+   */
+  private final Map<BratAnnotation, ListMultimap<Integer, String>> sources;
 
   public BratMerge() {
     newDoc = new BratDocument();
+    entities = new HashMap<>();
+    structures = new Structures();
+    events = new HashMap<>();
+    relations = new HashMap<>();
+    notes = new HashMap<>();
+    sources = Maps.newIdentityHashMap();
   }
 
-  private BratEntity find(BratEntity oldEntity) {
-    for (BratEntity newEntity : newDoc.getEntities()) {
-      if (entityEquator.equate(newEntity, oldEntity)) {
-        return newEntity;
-      }
+  /**
+   * Interns the signatures of events and relations to structure ids. Can be shared by threads.
+   */
+  private static final class Structures {
+
+    /**
+     * signature of event or relation --> structure id
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    int intern(String signature) {
+      return ids.computeIfAbsent(signature, k -> next.getAndIncrement());
     }
-    return null;
   }
 
-  private BratEvent find(BratEvent oldEvent, BratDocument oldDoc) {
-    BratBaseRelationEquator eventEquator = new BratBaseRelationEquator(oldDoc, newDoc);
-    for (BratEvent newEvent : newDoc.getEvents()) {
-      if (eventEquator.equate(oldEvent, newEvent)) {
-        return newEvent;
-      }
-    }
-    return null;
+  private static long spanKey(BratEntity entity) {
+    return ((long) entity.beginPosition() << 32) | (entity.endPosition() & 0xFFFFFFFFL);
   }
 
-  private BratRelation find(BratRelation oldRel, BratDocument oldDoc) {
-    BratBaseRelationEquator relEquator = new BratBaseRelationEquator(oldDoc, newDoc);
-    for (BratRelation newRel : newDoc.getRelations()) {
-      if (relEquator.equate(oldRel, newRel)) {
-        return newRel;
+  /**
+   * Keys of all annotations in one document, computed without looking at the merged document.
+   */
+  private static final class Keys {
+
+    private final BratDocument doc;
+    private final Structures structures;
+    private final long[] entities;
+    /**
+     * events and relations in dependency order
+     */
+    private final List<BratBaseRelation> relations;
+    private final List<Integer> relationKeys;
+    private final String[] notes;
+    /**
+     * old id --> key
+     */
+    private final Map<String, String> keyMap;
+
+    Keys(BratDocument doc, Structures structures) {
+      this.doc = doc;
+      this.structures = structures;
+      this.keyMap = new HashMap<>();
+
+      List<BratEntity> oldEntities = doc.getEntities();
+      entities = new long[oldEntities.size()];
+      for (int i = 0; i < entities.length; i++) {
+        entities[i] = spanKey(oldEntities.get(i));
+        keyMap.put(oldEntities.get(i).getId(), "T" + entities[i]);
       }
-    }
-    return null;
-  }
 
-  // map: old --> new
-  private BratEquivRelation find(BratEquivRelation oldRel, BratDocument oldDoc) {
-    BratEquivRelationEquator relEquator = new BratEquivRelationEquator(oldDoc, newDoc);
-    for (BratEquivRelation newRel : newDoc.getEquivRelations()) {
-      if (relEquator.equate(oldRel, newRel)) {
-        return newRel;
+      relations = Lists.newArrayList();
+      relationKeys = Lists.newArrayList();
+      doc.getEvents().forEach(this::visit);
+      doc.getRelations().forEach(this::visit);
+
+      for (BratEquivRelation oldRel : doc.getEquivRelations()) {
+        checkArgument(!oldRel.getArgIds().isEmpty(), "Equivalence relation has no entity: %s",
+            oldRel);
+        for (String argId : oldRel.getArgIds()) {
+          checkArgument(argId.length() > 0 && argId.charAt(0) == 'T',
+              "Does not support recursive matching: %s", oldRel);
+          checkArgument(doc.containsId(argId), "dont contain: %s", argId);
+        }
+      }
+
+      List<BratNote> oldNotes = doc.getNotes();
+      notes = new String[oldNotes.size()];
+      for (int i = 0; i < notes.length; i++) {
+        BratNote oldNote = oldNotes.get(i);
+        String refKey = keyMap.get(oldNote.getRefId());
+        checkArgument(refKey != null, "dont contain: %s", oldNote.getRefId());
+        notes[i] = refKey + '\t' + oldNote.getType() + '\t' + oldNote.getText();
+        keyMap.put(oldNote.getId(), "#" + notes[i]);
       }
     }
-    return null;
-  }
 
-  // map: old --> new
-  private BratNote find(BratNote oldNote, Map<String, String> idMap) {
-    String newRefId = idMap.get(oldNote.getRefId());
-    if (newRefId != null) {
-      List<BratNote> newNotes = newDoc.getNotes(newRefId);
-      for (BratNote newNote : newNotes) {
-        if (newNote.getType().equals(oldNote.getType())
-            && newNote.getText().equals(oldNote.getText())) {
-          return newNote;
+    /**
+     * Computes the keys of the event or relation and of all events and relations it depends on,
+     * in depth-first post-order.
+     */
+    private void visit(BratBaseRelation root) {
+      if (keyMap.containsKey(root.getId())) {
+        return;
+      }
+      Deque<BratBaseRelation> stack = new ArrayDeque<>();
+      Set<String> onStack = Sets.newHashSet();
+      stack.push(root);
+      onStack.add(root.getId());
+      while (!stack.isEmpty()) {
+        BratBaseRelation top = stack.peek();
+        BratBaseRelation next = null;
+        for (String argId : top.getArguments().values()) {
+          if (keyMap.containsKey(argId)) {
+            continue;
+          }
+          checkArgument(!onStack.contains(argId), "Cyclic reference: %s", top);
+          BratAnnotation arg = doc.containsId(argId) ? doc.getAnnotation(argId) : null;
+          checkArgument(arg instanceof BratBaseRelation, "dont contain: %s", argId);
+          next = (BratBaseRelation) arg;
+          break;
+        }
+        if (next != null) {
+          stack.push(next);
+          onStack.add(next.getId());
+          continue;
+        }
+        stack.pop();
+        onStack.remove(top.getId());
+        if (top instanceof BratEvent) {
+          String triggerId = ((BratEvent) top).getTriggerId();
+          checkArgument(keyMap.containsKey(triggerId), "dont contain: %s", triggerId);
         }
+        int key = structure(top);
+        keyMap.put(top.getId(), (top instanceof BratEvent ? "E" : "R") + key);
+        relations.add(top);
+        relationKeys.add(key);
       }
     }
-    return null;
+
+    /**
+     * Returns the structure id of kind, type and role:argKey of all arguments, in the order of
+     * roles.
+     */
+    private int structure(BratBaseRelation oldRel) {
+      StringBuilder sb = new StringBuilder(oldRel instanceof BratEvent ? "E" : "R");
+      sb.append(oldRel.getType());
+      for (Entry<String, String> entry : oldRel.getArguments().entrySet()) {
+        sb.append(' ').append(entry.getKey()).append(':').append(keyMap.get(entry.getValue()));
+      }
+      return structures.intern(sb.toString());
+    }
   }
 
   public void addDocument(BratDocument oldDoc) {
+    combine(new Keys(oldDoc, structures));
+  }
+
+  /**
+   * Adds the documents in the specified order. The keys of the documents are computed in
+   * parallel on the common fork/join pool.
+   *
+   * @param oldDocs documents to be merged
+   */
+  public void addDocuments(Collection<BratDocument> oldDocs) {
+    addDocuments(oldDocs, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Adds the documents in the specified order. The keys of the documents are computed in
+   * parallel on the specified pool.
+   *
+   * @param oldDocs documents to be merged
+   * @param pool the pool to compute keys on
+   */
+  public void addDocuments(Collection<BratDocument> oldDocs, ForkJoinPool pool) {
+    List<ForkJoinTask<Keys>> tasks = oldDocs.stream()
+        .map(oldDoc -> pool.submit(() -> new Keys(oldDoc, structures)))
+        .collect(Collectors.toList());
+    // Keys checks the references of its document, so a bad document fails here, before the
+    // merged document is changed
+    List<Keys> keys = tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList());
+    keys.forEach(this::combine);
+  }
+
+  private void combine(Keys keys) {
+    BratDocument oldDoc = keys.doc;
+    int source = sourceCount++;
     // old: new
     Map<String, String> idMap = new HashMap<String, String>();
 
     // entity
-    for (BratEntity oldEntity : oldDoc.getEntities()) {
+    List<BratEntity> oldEntities = oldDoc.getEntities();
+    for (int i = 0; i < oldEntities.size(); i++) {
+      BratEntity oldEntity = oldEntities.get(i);
       // if contained
-      BratEntity newEntity = find(oldEntity);
+      BratEntity newEntity = entities.get(keys.entities[i]);
       if (newEntity == null) {
         newEntity = new BratEntity(oldEntity);
         newEntity.setId("T" + newDoc.getEntities().size());
         newDoc.addAnnotation(newEntity);
+        entities.put(keys.entities[i], newEntity);
       }
       idMap.put(oldEntity.getId(), newEntity.getId());
+      addSource(newEntity, source, oldEntity);
     }
 
-    // event
-    for (BratEvent oldEvent : oldDoc.getEvents()) {
-      BratEvent newEvent = find(oldEvent, oldDoc);
-      if (newEvent == null) {
-        newEvent = new BratEvent();
-        newEvent.setId("E" + newDoc.getEvents().size());
-        newEvent.setType(oldEvent.getType());
-
-        checkArgument(idMap.containsKey(oldEvent.getTriggerId()),
-            "dont contain: " + oldEvent.getTriggerId());
-        newEvent.setTriggerId(idMap.get(oldEvent.getTriggerId()));
-        for (String role : oldEvent.getArguments().keySet()) {
-          String argId = oldEvent.getArgId(role);
-          checkArgument(argId.length() > 0 && argId.charAt(0) == 'T',
-              "Does not support recursive matching: %d",
-              oldEvent);
-          checkArgument(idMap.containsKey(argId), "dont contain: %s", argId);
-          newEvent.putArgument(role, idMap.get(argId));
-        }
-        newDoc.addAnnotation(newEvent);
-      }
-      idMap.put(oldEvent.getId(), newEvent.getId());
-    }
-
-    // relation
-    for (BratRelation oldRel : oldDoc.getRelations()) {
-      BratRelation newRel = find(oldRel, oldDoc);
-      if (newRel == null) {
-        newRel = new BratRelation();
-        newRel.setId("R" + newDoc.getRelations().size());
-        newRel.setType(oldRel.getType());
-
-        for (String role : oldRel.getArguments().keySet()) {
-          String argId = oldRel.getArgId(role);
-          checkArgument(
-              argId.length() > 0 && argId.charAt(0) == 'T',
-              "Does not support recursive matching: %d",
-              oldRel);
-          checkArgument(idMap.containsKey(argId), "dont contain: %s", argId);
-          newRel.putArgument(role, idMap.get(argId));
-        }
-        newDoc.addAnnotation(newRel);
+    // event and relation
+    for (int i = 0; i < keys.relations.size(); i++) {
+      BratBaseRelation oldRel = keys.relations.get(i);
+      BratBaseRelation newRel;
+      if (oldRel instanceof BratEvent) {
+        newRel = mergeEvent((BratEvent) oldRel, keys.relationKeys.get(i), idMap);
+      } else {
+        newRel = mergeRelation((BratRelation) oldRel, keys.relationKeys.get(i), idMap);
       }
       idMap.put(oldRel.getId(), newRel.getId());
+      addSource(newRel, source, oldRel);
     }
 
-    // attribute
-    // for (BratAttribute oldAtt : oldDoc.getAttributes()) {
-    // BratAttribute newAtt = find(oldAtt, idMap);
-    // if (newAtt == null) {
-    // newAtt = new BratAttribute();
-    // newAtt.setId("A" + newDoc.getAttributes().size());
-    // newAtt.setType(oldAtt.getType());
-    // newAtt.setRefId(idMap.get(oldAtt.getRefId()));
-    // for (String att : oldAtt.getAttributes()) {
-    // newAtt.addAttribute(att);
-    // }
-    // newDoc.addAnnotation(newAtt);
-    // }
-    // idMap.put(oldAtt.getId(), newAtt.getId());
-    // }
-
-    // equiv
+    // equiv: one cluster of the old document at a time
+    Map<String, List<BratEquivRelation>> oldClusters = new LinkedHashMap<>();
     for (BratEquivRelation oldRel : oldDoc.getEquivRelations()) {
-      BratEquivRelation newRel = find(oldRel, oldDoc);
-      if (newRel == null) {
-        newRel = new BratEquivRelation();
-        newRel.setId("*");
-        newRel.setType(oldRel.getType());
-
-        for (String argId : oldRel.getArgIds()) {
-          checkArgument(idMap.containsKey(argId), "dont contain: %s", argId);
-          newRel.addArgId(idMap.get(argId));
-        }
-        newDoc.addAnnotation(newRel);
+      String canonicalId = oldDoc.getCanonicalId(oldRel.getArgIds().iterator().next());
+      oldClusters.computeIfAbsent(canonicalId, k -> Lists.newArrayList()).add(oldRel);
+    }
+    for (Entry<String, List<BratEquivRelation>> entry : oldClusters.entrySet()) {
+      BratEquivRelation newRel = mergeEquivRelation(oldDoc.getEquivalenceCluster(entry.getKey()),
+          idMap);
+      for (BratEquivRelation oldRel : entry.getValue()) {
+        idMap.put(oldRel.getId(), newRel.getId());
+        addSource(newRel, source, oldRel);
       }
-      idMap.put(oldRel.getId(), newRel.getId());
     }
 
     // note
-    for (BratNote oldNote : oldDoc.getNotes()) {
-      BratNote newNote = find(oldNote, idMap);
+    List<BratNote> oldNotes = oldDoc.getNotes();
+    for (int i = 0; i < oldNotes.size(); i++) {
+      BratNote oldNote = oldNotes.get(i);
+      BratNote newNote = notes.get(keys.notes[i]);
       if (newNote == null) {
         newNote = new BratNote();
         newNote.setId("#" + newDoc.getNotes().size());
         newNote.setType(oldNote.getType());
-
-        checkArgument(idMap.containsKey(oldNote.getRefId()), "dont contain: " + oldNote.getRefId());
         newNote.setRefId(idMap.get(oldNote.getRefId()));
-
         newNote.setText(oldNote.getText());
         newDoc.addAnnotation(newNote);
+        notes.put(keys.notes[i], newNote);
       }
       idMap.put(oldNote.getId(), newNote.getId());
+      addSource(newNote, source, oldNote);
     }
   }
 
-  public BratDocument getDoc() {
-    return newDoc;
-  }
-
-  class BratEntityEquator implements Equator<BratEntity> {
-
-    @Override
-    public boolean equate(BratEntity e1, BratEntity e2) {
-      return e1.totalSpan().equals(e2.totalSpan());
-    }
-
-    @Override
-    public int hash(BratEntity o) {
-      return o.hashCode();
+  private BratEvent mergeEvent(BratEvent oldEvent, int key, Map<String, String> idMap) {
+    BratEvent newEvent = events.get(key);
+    if (newEvent == null) {
+      newEvent = new BratEvent();
+      newEvent.setId("E" + newDoc.getEvents().size());
+      newEvent.setType(oldEvent.getType());
+      newEvent.setTriggerId(idMap.get(oldEvent.getTriggerId()));
+      for (String role : oldEvent.getArguments().keySet()) {
+        newEvent.putArgument(role, idMap.get(oldEvent.getArgId(role)));
+      }
+      newDoc.addAnnotation(newEvent);
+      events.put(key, newEvent);
     }
-
+    return newEvent;
   }
 
-  class BratBaseRelationEquator implements Equator<BratBaseRelation> {
-
-    BratDocument doc1;
-    BratDocument doc2;
+  private BratRelation mergeRelation(BratRelation oldRel, int key, Map<String, String> idMap) {
+    BratRelation newRel = relations.get(key);
+    if (newRel == null) {
+      newRel = new BratRelation();
+      newRel.setId("R" + newDoc.getRelations().size());
+      newRel.setType(oldRel.getType());
 
-    public BratBaseRelationEquator(
-        BratDocument doc1,
-        BratDocument doc2) {
-      this.doc1 = doc1;
-      this.doc2 = doc2;
-    }
-
-    @Override
-    public boolean equate(BratBaseRelation r1, BratBaseRelation r2) {
-      // type
-      if (!r1.getType().equals(r2.getType())) {
-        return false;
-      } else if (!contains(r1, r2, doc1, doc2)) {
-        return false;
-      } else {
-        return contains(r2, r1, doc2, doc1);
+      for (String role : oldRel.getArguments().keySet()) {
+        newRel.putArgument(role, idMap.get(oldRel.getArgId(role)));
       }
+      newDoc.addAnnotation(newRel);
+      relations.put(key, newRel);
     }
+    return newRel;
+  }
 
-    /**
-     * for every role:arg in r1, r2 contains role:arg
-     */
-    private boolean contains(BratBaseRelation r1, BratBaseRelation r2,
-        BratDocument doc1, BratDocument doc2) {
-      for (String role1 : r1.getArguments().keySet()) {
-        String argId1 = r1.getArgId(role1);
-        checkArgument(
-            argId1.length() > 0 && argId1.charAt(0) == 'T',
-            "Does not support recursive matching: %d",
-            r1);
-        if (!r2.containsRole(role1)) {
-          return false;
-        }
-        String argId2 = r2.getArgId(role1);
-        checkArgument(
-            argId2.length() > 0 && argId2.charAt(0) == 'T',
-            "Does not support recursive matching: %d",
-            r2);
-        if (!entityEquator.equate(
-            (BratEntity) doc1.getAnnotation(argId1),
-            (BratEntity) doc2.getAnnotation(argId2))) {
-          return false;
+  /**
+   * Merges a cluster of the old document into the new document. The equivalence relations of the
+   * new document are kept disjoint: if the cluster shares entities with several of them, they are
+   * replaced by one equivalence relation holding all their members.
+   */
+  private BratEquivRelation mergeEquivRelation(Set<String> oldCluster,
+      Map<String, String> idMap) {
+    Set<String> newMembers = Sets.newTreeSet();
+    for (String oldId : oldCluster) {
+      newMembers.add(idMap.get(oldId));
+    }
+    List<BratEquivRelation> touched = Lists.newArrayList();
+    for (String newId : newMembers) {
+      for (BratAnnotation referrer : newDoc.getReferrers(newId)) {
+        if (referrer instanceof BratEquivRelation && !touched.contains(referrer)) {
+          touched.add((BratEquivRelation) referrer);
         }
       }
-      return true;
+    }
+    if (touched.size() == 1 && touched.get(0).getArgIds().containsAll(newMembers)) {
+      return touched.get(0);
     }
 
-    @Override
-    public int hash(BratBaseRelation arg0) {
-      throw new UnsupportedOperationException("hash() is not supported yet.");
+    BratEquivRelation newRel = new BratEquivRelation();
+    touched.forEach(rel -> newMembers.addAll(rel.getArgIds()));
+    newMembers.forEach(newRel::addArgId);
+    for (BratEquivRelation rel : touched) {
+      newDoc.removeAnnotation(rel);
+      ListMultimap<Integer, String> s = sources.remove(rel);
+      if (s != null) {
+        s.entries().forEach(e -> addSource(newRel, e.getKey(), e.getValue()));
+      }
     }
+    newDoc.addAnnotation(newRel);
+    return newRel;
   }
 
-  class BratEquivRelationEquator implements Equator<BratEquivRelation> {
-
-    BratDocument doc1;
-    BratDocument doc2;
-
-    public BratEquivRelationEquator(
-        BratDocument doc1,
-        BratDocument doc2) {
-      this.doc1 = doc1;
-      this.doc2 = doc2;
-    }
+  private void addSource(BratAnnotation newAnn, int source, BratAnnotation oldAnn) {
+    addSource(newAnn, source, oldAnn.getId());
+  }
 
-    @Override
-    public boolean equate(BratEquivRelation r1, BratEquivRelation r2) {
-      // type
-      if (!r1.getType().equals(r2.getType())) {
-        return false;
-      } else if (!contains(r1, r2, doc1, doc2)) {
-        return false;
-      } else {
-        return contains(r2, r1, doc2, doc1);
-      }
-    }
+  private void addSource(BratAnnotation newAnn, int source, String oldId) {
+    sources.computeIfAbsent(newAnn,
+        k -> MultimapBuilder.linkedHashKeys(2).arrayListValues(1).build())
+        .put(source, oldId);
+  }
 
-    /**
-     * for every role:arg in r1, r2 contains role:arg
-     */
-    private boolean contains(BratEquivRelation r1, BratEquivRelation r2,
-        BratDocument doc1, BratDocument doc2) {
-      for (String argId1 : r1.getArgIds()) {
-        checkArgument(
-            argId1.length() > 0 && argId1.charAt(0) == 'T',
-            "Does not support recursive matching: %s",
-            r1);
-        for (String argId2 : r2.getArgIds()) {
-          checkArgument(
-              argId2.length() > 0 && argId2.charAt(0) == 'T',
-              "Does not support recursive matching: %s",
-              r2);
-          if (entityEquator.equate(
-              (BratEntity) doc1.getAnnotation(argId1),
-              (BratEntity) doc2.getAnnotation(argId2))) {
-            return true;
-          }
-        }
-      }
-      return false;
-    }
+  /**
+   * Returns the sources of a merged annotation: the index of every document it came from (in the
+   * order the documents were added, starting at 0), mapped to the IDs of the annotations in that
+   * document.
+   *
+   * @param newAnn an annotation of the merged document
+   * @return the source indices and the IDs of the merged annotations, in the order they were
+   *         added
+   */
+  public ListMultimap<Integer, String> getSources(BratAnnotation newAnn) {
+    ListMultimap<Integer, String> s = sources.get(newAnn);
+    return s == null ? ImmutableListMultimap.of() : Multimaps.unmodifiableListMultimap(s);
+  }
 
-    @Override
-    public int hash(BratEquivRelation arg0) {
-      throw new UnsupportedOperationException("hash() is not supported yet.");
-    }
+  public BratDocument getDoc() {
+    return newDoc;
   }
 }
@@ -0,0 +1,227 @@
+package com.pengyifan.brat.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratBaseRelation;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.BratNote;
+import com.pengyifan.brat.BratRelation;
+
+/**
+ * Renumbers the annotations of brat documents.
+ * <p>
+ * The annotations of every kind are sorted by the comparator configured for the kind (or kept
+ * in their order if there is none) and given the IDs T1, T2, ... for entities, E1, E2, ... for
+ * events, R1, R2, ... for relations, A1, A2, ... for attributes and #1, #2, ... for notes. All
+ * references (event triggers and arguments, relation arguments, equivalence members, and the
+ * referred IDs of attributes and notes) are rewritten through one map from old to new IDs, so
+ * events and relations may refer to events and relations. References to IDs that are not in
+ * the document are kept. Afterwards the annotations are ordered by kind in the order above
+ * (equivalence relations come between relations and attributes), and within each kind by their
+ * new order.
+ * <p>
+ * Renumbering in place takes linear time plus the time to sort the kinds that have a
+ * comparator.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratRenumber {
+
+  private static final List<Class<? extends BratAnnotation>> KINDS = ImmutableList.of(
+      BratEntity.class,
+      BratEvent.class,
+      BratRelation.class,
+      BratEquivRelation.class,
+      BratAttribute.class,
+      BratNote.class);
+
+  private final Map<Class<?>, Comparator<BratAnnotation>> orders;
+  private final Set<Class<?>> keptIds;
+  private final int firstNumber;
+
+  private BratRenumber(Builder builder) {
+    this.orders = Maps.newHashMap(builder.orders);
+    this.keptIds = Sets.newHashSet(builder.keptIds);
+    this.firstNumber = builder.firstNumber;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private final Map<Class<?>, Comparator<BratAnnotation>> orders = Maps.newHashMap();
+    private final Set<Class<?>> keptIds = Sets.newHashSet();
+    private int firstNumber = 1;
+
+    private Builder() {
+    }
+
+    /**
+     * Sorts the annotations of the kind by the comparator before they are renumbered.
+     *
+     * @param kind the class of annotations, such as {@code BratEntity.class}
+     * @param comparator the order of annotations of the kind
+     * @return this builder
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BratAnnotation> Builder order(Class<T> kind,
+        Comparator<? super T> comparator) {
+      checkArgument(KINDS.contains(kind), "Unknown annotation kind: %s", kind);
+      orders.put(kind, (Comparator<BratAnnotation>) comparator);
+      return this;
+    }
+
+    /**
+     * Keeps the IDs of the annotations of the kind. They are still reordered if the kind has a
+     * comparator, and their references are still rewritten.
+     *
+     * @param kind the class of annotations, such as {@code BratNote.class}
+     * @return this builder
+     */
+    public Builder keepIds(Class<? extends BratAnnotation> kind) {
+      checkArgument(KINDS.contains(kind) && kind != BratEquivRelation.class,
+          "Cannot keep IDs of kind: %s", kind);
+      keptIds.add(kind);
+      return this;
+    }
+
+    /**
+     * Sets the number of the first annotation of every kind. The default is 1.
+     *
+     * @param firstNumber the number of the first annotation
+     * @return this builder
+     */
+    public Builder firstNumber(int firstNumber) {
+      checkArgument(firstNumber >= 0, "First number should be non-negative: %s", firstNumber);
+      this.firstNumber = firstNumber;
+      return this;
+    }
+
+    public BratRenumber build() {
+      return new BratRenumber(this);
+    }
+  }
+
+  /**
+   * Returns a renumbered deep copy of the document. The document itself is not changed.
+   *
+   * @param doc the brat document
+   * @return the renumbered copy
+   */
+  public BratDocument renumber(BratDocument doc) {
+    BratDocument newDoc = BratUtils.deepCopy(doc);
+    renumberInPlace(newDoc);
+    return newDoc;
+  }
+
+  /**
+   * Renumbers the annotations of the document in place.
+   *
+   * @param doc the brat document
+   */
+  public void renumberInPlace(BratDocument doc) {
+    // old: new
+    Map<String, String> idMap = Maps.newHashMap();
+    Map<BratAnnotation, Integer> ranks = Maps.newIdentityHashMap();
+    for (Class<?> kind : KINDS) {
+      List<? extends BratAnnotation> annotations = annotations(doc, kind);
+      Comparator<BratAnnotation> comparator = orders.get(kind);
+      if (comparator != null) {
+        List<BratAnnotation> sorted = Lists.newArrayList(annotations);
+        sorted.sort(comparator);
+        annotations = sorted;
+      }
+      String prefix = keptIds.contains(kind) ? null : prefix(kind);
+      for (int i = 0; i < annotations.size(); i++) {
+        BratAnnotation ann = annotations.get(i);
+        ranks.put(ann, ranks.size());
+        if (prefix != null) {
+          idMap.put(ann.getId(), prefix + (firstNumber + i));
+        }
+      }
+    }
+
+    for (BratAnnotation ann : doc.getAnnotations()) {
+      rewrite(ann, idMap);
+    }
+    doc.sort(Comparator.comparing(ranks::get));
+    doc.reindex();
+  }
+
+  private static List<? extends BratAnnotation> annotations(BratDocument doc, Class<?> kind) {
+    if (kind == BratEntity.class) {
+      return doc.getEntities();
+    } else if (kind == BratEvent.class) {
+      return doc.getEvents();
+    } else if (kind == BratRelation.class) {
+      return doc.getRelations();
+    } else if (kind == BratEquivRelation.class) {
+      return doc.getEquivRelations();
+    } else if (kind == BratAttribute.class) {
+      return doc.getAttributes();
+    } else {
+      return doc.getNotes();
+    }
+  }
+
+  private static String prefix(Class<?> kind) {
+    if (kind == BratEntity.class) {
+      return "T";
+    } else if (kind == BratEvent.class) {
+      return "E";
+    } else if (kind == BratRelation.class) {
+      return "R";
+    } else if (kind == BratAttribute.class) {
+      return "A";
+    } else if (kind == BratNote.class) {
+      return "#";
+    } else {
+      return null;
+    }
+  }
+
+  private static void rewrite(BratAnnotation ann, Map<String, String> idMap) {
+    if (ann instanceof BratEquivRelation) {
+      Set<String> argIds = ((BratEquivRelation) ann).getArgIds();
+      List<String> newArgIds = Lists.newArrayList();
+      argIds.forEach(argId -> newArgIds.add(idMap.getOrDefault(argId, argId)));
+      argIds.clear();
+      argIds.addAll(newArgIds);
+      return;
+    }
+    ann.setId(idMap.getOrDefault(ann.getId(), ann.getId()));
+    if (ann instanceof BratEvent) {
+      BratEvent event = (BratEvent) ann;
+      if (event.getTriggerId() != null) {
+        event.setTriggerId(idMap.getOrDefault(event.getTriggerId(), event.getTriggerId()));
+      }
+    }
+    if (ann instanceof BratBaseRelation) {
+      ((BratBaseRelation) ann).getArguments()
+          .replaceAll((role, argId) -> idMap.getOrDefault(argId, argId));
+    } else if (ann instanceof BratAttribute) {
+      BratAttribute attribute = (BratAttribute) ann;
+      attribute.setRefId(idMap.getOrDefault(attribute.getRefId(), attribute.getRefId()));
+    } else if (ann instanceof BratNote) {
+      BratNote note = (BratNote) ann;
+      note.setRefId(idMap.getOrDefault(note.getRefId(), note.getRefId()));
+    }
+  }
+}
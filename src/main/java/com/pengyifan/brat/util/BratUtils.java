@@ -1,13 +1,11 @@
 package com.pengyifan.brat.util;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.Comparator;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.google.common.collect.Maps;
-import com.google.common.collect.Range;
+import com.pengyifan.brat.BratAnnotation;
 import com.pengyifan.brat.BratAttribute;
 import com.pengyifan.brat.BratDocument;
 import com.pengyifan.brat.BratEntity;
@@ -35,72 +33,81 @@ public final class BratUtils {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Returns the first entity whose total span is [beginIndex, endIndex). This scans all
+   * entities; to look up many spans in the same entities, build a {@link BratEntityLookup} once.
+   */
   public static Optional<BratEntity> getEnity(Collection<BratEntity> entities,
       int beginIndex, int endIndex) {
-    Range<Integer> range = Range.closedOpen(beginIndex, endIndex);
     for (BratEntity entity : entities) {
-      if (range.equals(entity.totalSpan())) {
+      if (entity.getSpanCount() > 0
+          && entity.beginPosition() == beginIndex
+          && entity.endPosition() == endIndex) {
         return Optional.of(entity);
       }
     }
     return Optional.empty();
   }
 
-  public static BratDocument reorderEntityByOffset(BratDocument document) {
+  /**
+   * Returns a copy of the document. Annotations are copied as well, so that changing the copy
+   * does not change the document.
+   *
+   * @param document the brat document
+   * @return a deep copy of the document
+   * @since 1.3.0
+   */
+  public static BratDocument deepCopy(BratDocument document) {
     BratDocument newDocument = new BratDocument();
     newDocument.setDocId(document.getDocId());
     newDocument.setText(document.getText());
-
-    List<BratEntity> entityList = document.getEntities().stream()
-        .sorted((e1, e2) -> Integer.compare(e1.beginPosition(), e2.beginPosition()))
-        .collect(Collectors.toList());
-
-    // old, new
-    Map<String, String> map = Maps.newHashMap();
-    int i = 0;
-    for(BratEntity entity: entityList) {
-      BratEntity newEntity = new BratEntity(entity);
-      newEntity.setId("T" + i++);
-      map.put(entity.getId(), newEntity.getId());
-      newDocument.addAnnotation(newEntity);
-    }
-    // event
-    for(BratEvent event: document.getEvents()) {
-      BratEvent newEvent = new BratEvent(event);
-      newEvent.setTriggerId(map.get(event.getTriggerId()));
-      for(String key: newEvent.getArguments().keySet()) {
-        newEvent.putArgument(key, map.get(event.getArgId(key)));
-      }
-      newDocument.addAnnotation(newEvent);
-    }
-    // relation
-    for(BratRelation relation: document.getRelations()) {
-      BratRelation newRelation = new BratRelation(relation);
-      for(String key: newRelation.getArguments().keySet()) {
-        newRelation.putArgument(key, map.get(relation.getArgId(key)));
-      }
-      newDocument.addAnnotation(newRelation);
-    }
-    // equiv
-    for(BratEquivRelation equiv: document.getEquivRelations()) {
-      BratEquivRelation newEquiv = new BratEquivRelation();
-      for(String id: equiv.getArgIds()) {
-        newEquiv.addArgId(map.get(id));
-      }
-      newDocument.addAnnotation(newEquiv);
-    }
-    // attribute
-    for(BratAttribute attribute: document.getAttributes()) {
-      BratAttribute newAttribute = new BratAttribute(attribute);
-      newAttribute.setRefId(map.get(attribute.getRefId()));
-      newDocument.addAnnotation(newAttribute);
-    }
-    // note
-    for(BratNote note: document.getNotes()) {
-      BratNote newNote = new BratNote(note);
-      newNote.setRefId(map.get(note.getRefId()));
-      newDocument.addAnnotation(newNote);
+    for (BratAnnotation annotation : document.getAnnotations()) {
+      newDocument.addAnnotation(copyOf(annotation));
     }
     return newDocument;
   }
+
+  /**
+   * Returns a copy of the annotation.
+   *
+   * @param annotation the brat annotation
+   * @return a copy of the annotation
+   * @since 1.3.0
+   */
+  public static BratAnnotation copyOf(BratAnnotation annotation) {
+    if (annotation instanceof BratEntity) {
+      return new BratEntity((BratEntity) annotation);
+    } else if (annotation instanceof BratRelation) {
+      return new BratRelation((BratRelation) annotation);
+    } else if (annotation instanceof BratEvent) {
+      return new BratEvent((BratEvent) annotation);
+    } else if (annotation instanceof BratAttribute) {
+      return new BratAttribute((BratAttribute) annotation);
+    } else if (annotation instanceof BratEquivRelation) {
+      return new BratEquivRelation((BratEquivRelation) annotation);
+    } else if (annotation instanceof BratNote) {
+      return new BratNote((BratNote) annotation);
+    }
+    throw new IllegalArgumentException("Unknown annotation: " + annotation);
+  }
+
+  /**
+   * Returns a copy of the document, in which entities are sorted by their beginning offsets and
+   * renumbered from T0. References to entities are updated; other IDs are kept.
+   *
+   * @param document the brat document
+   * @return the reordered copy
+   * @see BratRenumber
+   */
+  public static BratDocument reorderEntityByOffset(BratDocument document) {
+    return BratRenumber.builder()
+        .firstNumber(0)
+        .order(BratEntity.class, Comparator.comparingInt(BratEntity::beginPosition))
+        .keepIds(BratRelation.class)
+        .keepIds(BratEvent.class)
+        .keepIds(BratAttribute.class)
+        .keepIds(BratNote.class)
+        .build()
+        .renumber(document);
+  }
 }
@@ -0,0 +1,305 @@
+package com.pengyifan.brat.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.BratNote;
+import com.pengyifan.brat.BratRelation;
+
+/**
+ * Checks the referential integrity and the text consistency of brat documents.
+ * <p>
+ * Every event trigger and argument, relation argument, equivalence member, and the referred ID
+ * of every attribute and note has to be the ID of an annotation in the same document, and event
+ * triggers have to be entities. If the document has text, the spans of every entity have to lie
+ * in the text, and the text of the entity has to equal the text at its spans (discontinuous
+ * spans joined by a space).
+ * <p>
+ * Each document is checked in one pass over its annotations, using the ID index of the
+ * document. Violations are reported to a consumer instead of being thrown, so that all problems
+ * of a corpus can be collected in one run.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public class BratValidator {
+
+  public enum Kind {
+    /**
+     * The annotation refers to an ID that is not in the document.
+     */
+    MISSING_REFERENCE,
+    /**
+     * The annotation refers to an annotation of the wrong kind, such as an event trigger that
+     * is not an entity.
+     */
+    ILLEGAL_REFERENCE,
+    /**
+     * A span of the entity lies outside the document text.
+     */
+    SPAN_OUT_OF_TEXT,
+    /**
+     * The text of the entity differs from the document text at its spans.
+     */
+    TEXT_MISMATCH
+  }
+
+  /**
+   * One problem found in a document.
+   */
+  public static final class Violation {
+
+    private final String docId;
+    private final int line;
+    private final String annotationId;
+    private final Kind kind;
+    private final String message;
+
+    Violation(String docId, int line, String annotationId, Kind kind, String message) {
+      this.docId = docId;
+      this.line = line;
+      this.annotationId = annotationId;
+      this.kind = kind;
+      this.message = message;
+    }
+
+    public String getDocId() {
+      return docId;
+    }
+
+    /**
+     * Returns the 1-based position of the annotation in the document. It is the line number of
+     * the annotation if the document was read from a file without empty lines.
+     *
+     * @return the position of the annotation in the document
+     */
+    public int getLine() {
+      return line;
+    }
+
+    public String getAnnotationId() {
+      return annotationId;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Violation)) {
+        return false;
+      }
+      Violation rhs = (Violation) o;
+      return Objects.equals(docId, rhs.docId)
+          && line == rhs.line
+          && Objects.equals(annotationId, rhs.annotationId)
+          && kind == rhs.kind
+          && Objects.equals(message, rhs.message);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(docId, line, annotationId, kind, message);
+    }
+
+    @Override
+    public String toString() {
+      return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+          .append("docId", docId)
+          .append("line", line)
+          .append("annotationId", annotationId)
+          .append("kind", kind)
+          .append("message", message)
+          .toString();
+    }
+  }
+
+  /**
+   * Checks the document and returns the violations, in the order of the annotations.
+   *
+   * @param doc the brat document
+   * @return the violations, empty if the document is valid
+   */
+  public List<Violation> validate(BratDocument doc) {
+    List<Violation> violations = Lists.newArrayList();
+    validate(doc, violations::add);
+    return violations;
+  }
+
+  /**
+   * Checks the document and passes the violations to the consumer, in the order of the
+   * annotations.
+   *
+   * @param doc the brat document
+   * @param consumer the consumer of violations
+   */
+  public void validate(BratDocument doc, Consumer<Violation> consumer) {
+    List<BratAnnotation> annotations = doc.getAnnotations();
+    for (int i = 0; i < annotations.size(); i++) {
+      new Checker(doc, i + 1, annotations.get(i), consumer).check();
+    }
+  }
+
+  /**
+   * Checks the documents in parallel on the pool and passes the violations to the consumer.
+   * The violations of one document are passed together and in order, but documents are
+   * reported in the order they are done. The consumer is never called concurrently.
+   *
+   * @param docs the brat documents
+   * @param pool the pool to check documents on
+   * @param consumer the consumer of violations
+   */
+  public void validate(Collection<BratDocument> docs, ForkJoinPool pool,
+      Consumer<Violation> consumer) {
+    List<ForkJoinTask<?>> tasks = docs.stream()
+        .map(doc -> pool.submit(() -> {
+          List<Violation> violations = validate(doc);
+          if (!violations.isEmpty()) {
+            synchronized (consumer) {
+              violations.forEach(consumer);
+            }
+          }
+        }))
+        .collect(Collectors.toList());
+    tasks.forEach(ForkJoinTask::join);
+  }
+
+  /**
+   * Checks the documents in parallel on the common fork/join pool and passes the violations to
+   * the consumer.
+   *
+   * @param docs the brat documents
+   * @param consumer the consumer of violations
+   * @see #validate(Collection, ForkJoinPool, Consumer)
+   */
+  public void validate(Collection<BratDocument> docs, Consumer<Violation> consumer) {
+    validate(docs, ForkJoinPool.commonPool(), consumer);
+  }
+
+  /**
+   * Checks one annotation.
+   */
+  private static final class Checker {
+
+    private final BratDocument doc;
+    private final int line;
+    private final BratAnnotation ann;
+    private final Consumer<Violation> consumer;
+
+    Checker(BratDocument doc, int line, BratAnnotation ann, Consumer<Violation> consumer) {
+      this.doc = doc;
+      this.line = line;
+      this.ann = ann;
+      this.consumer = consumer;
+    }
+
+    void check() {
+      if (ann instanceof BratEntity) {
+        checkText((BratEntity) ann);
+      } else if (ann instanceof BratEvent) {
+        BratEvent event = (BratEvent) ann;
+        if (checkReference("trigger", event.getTriggerId())
+            && !(doc.getAnnotation(event.getTriggerId()) instanceof BratEntity)) {
+          report(Kind.ILLEGAL_REFERENCE, "trigger %s is not an entity", event.getTriggerId());
+        }
+        event.getArguments().forEach(this::checkReference);
+      } else if (ann instanceof BratRelation) {
+        ((BratRelation) ann).getArguments().forEach(this::checkReference);
+      } else if (ann instanceof BratEquivRelation) {
+        for (String argId : ((BratEquivRelation) ann).getArgIds()) {
+          checkReference("member", argId);
+        }
+      } else if (ann instanceof BratAttribute) {
+        checkReference("refId", ((BratAttribute) ann).getRefId());
+      } else if (ann instanceof BratNote) {
+        checkReference("refId", ((BratNote) ann).getRefId());
+      }
+    }
+
+    /**
+     * Returns true if the document contains the referred ID.
+     */
+    private boolean checkReference(String role, String refId) {
+      if (refId == null || !doc.containsId(refId)) {
+        report(Kind.MISSING_REFERENCE, "%s %s does not exist", role, refId);
+        return false;
+      }
+      return true;
+    }
+
+    private void checkText(BratEntity entity) {
+      String text = doc.getText();
+      if (text == null || entity.getSpanCount() == 0) {
+        return;
+      }
+      if (entity.beginPosition() < 0 || entity.endPosition() > text.length()) {
+        report(Kind.SPAN_OUT_OF_TEXT, "span %s-%s is outside text of length %s",
+            entity.beginPosition(), entity.endPosition(), text.length());
+        return;
+      }
+      CharSequence entityText = entity.getTextView();
+      if (entityText != null && !matches(entityText, entity, text)) {
+        report(Kind.TEXT_MISMATCH, "text \"%s\" differs from \"%s\"", entityText,
+            textAt(entity, text));
+      }
+    }
+
+    private void report(Kind kind, String format, Object... args) {
+      consumer.accept(new Violation(doc.getDocId(), line,
+          ann instanceof BratEquivRelation ? BratEquivRelation.ID : ann.getId(),
+          kind, String.format(format, args)));
+    }
+  }
+
+  private static boolean matches(CharSequence entityText, BratEntity entity, String text) {
+    int k = 0;
+    for (int i = 0; i < entity.getSpanCount(); i++) {
+      if (i > 0) {
+        if (k >= entityText.length() || entityText.charAt(k) != ' ') {
+          return false;
+        }
+        k++;
+      }
+      for (int j = entity.getSpanStart(i); j < entity.getSpanEnd(i); j++, k++) {
+        if (k >= entityText.length() || entityText.charAt(k) != text.charAt(j)) {
+          return false;
+        }
+      }
+    }
+    return k == entityText.length();
+  }
+
+  private static String textAt(BratEntity entity, String text) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < entity.getSpanCount(); i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(text, entity.getSpanStart(i), entity.getSpanEnd(i));
+    }
+    return sb.toString();
+  }
+}
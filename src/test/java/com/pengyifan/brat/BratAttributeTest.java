@@ -37,6 +37,11 @@ public class BratAttributeTest {
     assertEquals(base, attribute);
   }
 
+  @Test
+  public void testParseAttributeTrailingTab() throws Exception {
+    assertEquals(base, BratAttribute.parseAttribute(LINE + "\t"));
+  }
+
   @Test
   public void testEquals() throws Exception {
     BratAttribute baseCopy = new BratAttribute(base);
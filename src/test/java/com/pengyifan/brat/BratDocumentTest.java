@@ -2,7 +2,10 @@ package com.pengyifan.brat;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -13,12 +16,16 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 import com.google.common.testing.EqualsTester;
 import com.pengyifan.brat.io.BratIOUtils;
@@ -33,6 +40,9 @@ public class BratDocumentTest {
 
   private BratDocument base;
 
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   @Before
   public void setUp()
       throws IOException, URISyntaxException {
@@ -89,6 +99,75 @@ public class BratDocumentTest {
     assertEquals("E2", event.getArgId("Theme"));
   }
 
+  @Test
+  public void testAddAnnotation() {
+    BratEntity entity = new BratEntity();
+    entity.setId("T9");
+    entity.setType("Protein");
+    entity.addSpan(0, 3);
+    entity.setText(TEXT);
+    base.addAnnotation(entity);
+    assertTrue(base.containsId("T9"));
+    assertSame(entity, base.getEntity("T9"));
+
+    thrown.expect(IllegalArgumentException.class);
+    base.addAnnotation(new BratEntity(entity));
+  }
+
+  @Test
+  public void testRemoveAnnotation() {
+    BratEntity entity = base.getEntity("T2");
+    assertTrue(base.removeAnnotation(entity));
+    assertFalse(base.containsId("T2"));
+    assertFalse(base.removeAnnotation(entity));
+
+    base.addAnnotation(entity);
+    assertSame(entity, base.getEntity("T2"));
+  }
+
+  @Test
+  public void testGetEntities() {
+    List<BratEntity> entities = base.getEntities();
+    assertEquals(8, entities.size());
+    assertEquals("T1", entities.get(0).getId());
+    assertEquals("T8", entities.get(7).getId());
+    assertSame(entities, base.getEntities());
+
+    base.removeAnnotation(base.getEntity("T1"));
+    assertEquals(7, entities.size());
+    assertEquals("T2", entities.get(0).getId());
+
+    thrown.expect(UnsupportedOperationException.class);
+    entities.clear();
+  }
+
+  @Test
+  public void testGetReferrers() {
+    assertEquals(3, base.getReferrers("T1").size());
+    assertThat(base.getNotes("T1"), is(Lists.newArrayList(base.getNotes())));
+    assertThat(base.getAttributes("E1"), is(Lists.newArrayList(base.getAttributes())));
+    assertTrue(base.getNotes("T2").isEmpty());
+
+    BratEvent event = base.getEvent("E1");
+    assertThat(base.getReferrers("E2"), is(Lists.<BratAnnotation>newArrayList(event)));
+    assertThat(base.getReferrers("T7"), is(Lists.<BratAnnotation>newArrayList(event)));
+  }
+
+  @Test
+  public void testRemoveAnnotationAndReferrers() {
+    List<BratAnnotation> removed = base.removeAnnotationAndReferrers(base.getEntity("T2"));
+    assertEquals(6, removed.size());
+    assertEquals("T2", removed.get(0).getId());
+    assertFalse(base.containsId("E1"));
+    assertFalse(base.containsId("E2"));
+    assertFalse(base.containsId("R1"));
+    assertFalse(base.containsId("A1"));
+    assertTrue(base.getEquivRelations().isEmpty());
+    assertTrue(base.containsId("T8"));
+    assertEquals(1, base.getReferrers("T1").size());
+    assertTrue(base.getReferrers("T8").isEmpty());
+  }
+
   @Test
   public void testGetEquivRelations() {
     BratEquivRelation relation = Iterables.getOnlyElement(base.getEquivRelations());
@@ -96,4 +175,31 @@ public class BratDocumentTest {
     assertEquals("Equiv", relation.getType());
     assertThat(relation.getArgIds(), is(Sets.newHashSet("T1", "T2")));
   }
+
+  @Test
+  public void testEquivalenceClusters() {
+    BratEquivRelation relation = new BratEquivRelation();
+    relation.addArgId("T8");
+    relation.addArgId("T2");
+    base.addAnnotation(relation);
+    relation = new BratEquivRelation();
+    relation.addArgId("T4");
+    relation.addArgId("T5");
+    base.addAnnotation(relation);
+
+    assertTrue(base.isEquivalent("T1", "T8"));
+    assertFalse(base.isEquivalent("T1", "T4"));
+    assertTrue(base.isEquivalent("T7", "T7"));
+    assertEquals("T1", base.getCanonicalId("T8"));
+    assertEquals("T7", base.getCanonicalId("T7"));
+    assertThat(base.getEquivalenceCluster("T2"), 
+        is(Sets.newHashSet("T1", "T2", "T8")));
+    assertThat(base.getEquivalenceCluster("T7"), is(Sets.newHashSet("T7")));
+    assertEquals(2, base.getEquivalenceClusters().size());
+
+    base.removeAnnotation(base.getEquivRelations().get(0));
+    assertFalse(base.isEquivalent("T1", "T8"));
+    assertTrue(base.isEquivalent("T2", "T8"));
+    assertEquals("T2", base.getCanonicalId("T8"));
+  }
 }
@@ -2,6 +2,9 @@ package com.pengyifan.brat;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -88,6 +91,29 @@ public class BratEntityTest {
     assertEquals(base, BratEntity.parseEntity(LINE));
   }
 
+  @Test
+  public void testParseIllegalEntity() {
+    thrown.expect(BratIllegalFormatException.class);
+    BratEntity.parseEntity("T1\tOrganization 48;53\tSony");
+  }
+
+  @Test
+  public void testParseEntityMissingText() {
+    thrown.expect(BratIllegalFormatException.class);
+    BratEntity.parseEntity("T1\tOrganization 48 53");
+  }
+
+  @Test
+  public void testParseEntityTrailingTab() {
+    assertEquals(base, BratEntity.parseEntity(LINE + "\t"));
+  }
+
+  @Test
+  public void testParseEntityEmptySpan() {
+    thrown.expect(BratIllegalFormatException.class);
+    BratEntity.parseEntity("T3\tOrganization 0 0\tx");
+  }
+
   @Test
   public void testAddSpan() {
     Range<Integer> span = Range.closed(23, 30);
@@ -99,6 +125,26 @@ public class BratEntityTest {
     base.addSpan(span);
   }
   
+  @Test
+  public void testAddSpanMerge() {
+    BratEntity entity = new BratEntity();
+    entity.addSpan(10, 12);
+    entity.addSpan(0, 2);
+    entity.addSpan(5, 6);
+    assertEquals(3, entity.getSpanCount());
+    assertEquals(0, entity.getSpanStart(0));
+    assertEquals(12, entity.getSpanEnd(2));
+
+    entity.addSpan(2, 5);
+    entity.addSpan(7, 7);
+    assertEquals(2, entity.getSpanCount());
+    assertEquals(6, entity.getSpanEnd(0));
+
+    entity.addSpan(4, 20);
+    assertEquals(1, entity.getSpanCount());
+    assertEquals(Range.closedOpen(0, 20), entity.totalSpan());
+  }
+
   @Test
   public void testSetId() {
     thrown.expect(NullPointerException.class);
@@ -120,4 +166,76 @@ public class BratEntityTest {
   public void testToBratString() {
     assertEquals(LINE, base.toBratString());
   }
+
+  @Test
+  public void testAppendTo()
+      throws IOException {
+    StringWriter writer = new StringWriter();
+    base.appendTo(writer);
+    assertEquals(LINE, writer.toString());
+
+    BratEntity entity = new BratEntity();
+    entity.setId(ID);
+    entity.setType(TYPE);
+    entity.addSpan(0, 10);
+    entity.addSpan(1000000, 2147483647);
+    entity.setText(TEXT);
+    writer = new StringWriter();
+    entity.appendTo(writer);
+    assertEquals("T1\tOrganization 0 10;1000000 2147483647\tSony", writer.toString());
+
+    // an appendable that is neither a StringBuilder nor a Writer
+    StringBuffer buffer = new StringBuffer();
+    entity.appendTo(buffer);
+    assertEquals("T1\tOrganization 0 10;1000000 2147483647\tSony", buffer.toString());
+  }
+
+  @Test
+  public void testSharedText() {
+    BratDocument doc = new BratDocument();
+    doc.setText("The Sony Walkman");
+    doc.setSharedEntityText(true);
+
+    BratEntity entity = BratEntity.parseEntity("T1\tOrganization 4 8;9 16\tSony Walkman");
+    doc.addAnnotation(entity);
+    CharSequence view = entity.getTextView();
+    assertFalse(view instanceof String);
+    assertEquals(12, view.length());
+    assertEquals(' ', view.charAt(4));
+    assertEquals('W', view.charAt(5));
+    assertEquals("Sony", view.subSequence(0, 4));
+    assertEquals("Sony Walkman", entity.getText());
+    assertEquals("T1\tOrganization 4 8;9 16\tSony Walkman", entity.toBratString());
+    assertEquals(BratEntity.parseEntity(entity.toBratString()), entity);
+    assertEquals("Sony Walkman", new BratEntity(entity).getText());
+
+    // the stored text does not match the document text
+    BratEntity mismatch = BratEntity.parseEntity("T2\tOrganization 4 8\tSONY");
+    doc.addAnnotation(mismatch);
+    assertEquals("SONY", mismatch.getTextView());
+
+    // no document text
+    BratEntity noText = BratEntity.parseEntity("T1\tOrganization 4 8\tSony");
+    BratDocument other = new BratDocument();
+    other.setSharedEntityText(true);
+    other.addAnnotation(noText);
+    assertEquals("Sony", noText.getTextView());
+  }
+
+  @Test
+  public void testSharedTextAddSpan() {
+    BratDocument doc = new BratDocument();
+    doc.setText("The Sony Walkman");
+    doc.setSharedEntityText(true);
+
+    BratEntity entity = BratEntity.parseEntity("T1\tOrganization 4 8\tSony");
+    doc.addAnnotation(entity);
+    // changing the spans keeps the text, as for entities that do not share it
+    entity.addSpan(9, 16);
+    assertEquals("Sony", entity.getText());
+    entity.addSpan(20, 30);
+    assertEquals("Sony", entity.getText());
+    assertEquals("T1\tOrganization 4 8;9 16;20 30\tSony", entity.toBratString());
+    assertEquals(entity.hashCode(), new BratEntity(entity).hashCode());
+  }
 }
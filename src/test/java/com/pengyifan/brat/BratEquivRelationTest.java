@@ -61,6 +61,11 @@ public class BratEquivRelationTest {
     assertTrue(relation.containsArgId(ARG3));
   }
 
+  @Test
+  public void testParseEquivRelationTrailingTab() throws Exception {
+    assertEquals(base, BratEquivRelation.parseEquivRelation(LINE + "\t"));
+  }
+
   @Test
   public void testSetId() throws Exception {
     thrown.expect(UnsupportedOperationException.class);
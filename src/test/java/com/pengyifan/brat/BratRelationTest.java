@@ -79,6 +79,12 @@ public class BratRelationTest {
     assertEquals(ROLE2_ID, relation.getArgId(ROLE2));
   }
 
+  @Test
+  public void testParseIllegalRelation() {
+    thrown.expect(BratIllegalFormatException.class);
+    BratRelation.parseRelation("R1\tOrigin Arg1 Arg2:T4");
+  }
+
   @Test
   public void testSetId() {
     thrown.expect(NullPointerException.class);
@@ -0,0 +1,99 @@
+package com.pengyifan.brat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.collect.Lists;
+
+public class BratSymbolTableTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testIntern() {
+    BratSymbolTable symbols = new BratSymbolTable();
+    String protein = new String("Protein");
+    assertSame(protein, symbols.intern(protein));
+    assertSame(protein, symbols.intern(new StringBuilder("Protein")));
+    assertSame(protein, symbols.intern("T1\tProtein 0 3", 3, 10));
+    assertEquals("", symbols.intern("Protein", 0, 0));
+
+    assertEquals(0, symbols.id("Protein"));
+    assertEquals(1, symbols.id(""));
+    assertEquals(2, symbols.id("Theme"));
+    assertEquals("Theme", symbols.symbol(2));
+    assertEquals(3, symbols.size());
+
+    thrown.expect(IndexOutOfBoundsException.class);
+    symbols.symbol(3);
+  }
+
+  @Test
+  public void testGrow() {
+    BratSymbolTable symbols = new BratSymbolTable();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, symbols.id("Type" + i));
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, symbols.id("Type" + i));
+      assertEquals("Type" + i, symbols.symbol(i));
+    }
+    assertEquals(1000, symbols.size());
+  }
+
+  @Test
+  public void testConcurrent()
+      throws Exception {
+    BratSymbolTable symbols = new BratSymbolTable();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<List<String>>> futures = Lists.newArrayList();
+    for (int t = 0; t < 4; t++) {
+      futures.add(executor.submit(() -> {
+        List<String> interned = Lists.newArrayList();
+        for (int i = 0; i < 500; i++) {
+          interned.add(symbols.intern("Type" + i));
+        }
+        return interned;
+      }));
+    }
+    List<String> expected = futures.get(0).get();
+    for (Future<List<String>> future : futures) {
+      List<String> actual = future.get();
+      for (int i = 0; i < expected.size(); i++) {
+        assertSame(expected.get(i), actual.get(i));
+      }
+    }
+    executor.shutdown();
+    assertEquals(500, symbols.size());
+  }
+
+  @Test
+  public void testParse() {
+    BratSymbolTable symbols = new BratSymbolTable();
+    BratEvent e1 = BratEvent.parseEvent("E1\tRegulation:T1 Theme:T2", symbols);
+    BratEvent e2 = BratEvent.parseEvent("E2\tRegulation:T3 Theme:T4", symbols);
+    assertSame(e1.getType(), e2.getType());
+    assertSame(e1.getArguments().keySet().iterator().next(),
+        e2.getArguments().keySet().iterator().next());
+
+    BratAttribute a1 = BratAttribute.parseAttribute("A1\tNegation E1 Strong", symbols);
+    BratAttribute a2 = BratAttribute.parseAttribute("A2\tNegation E2 Strong", symbols);
+    assertSame(a1.getType(), a2.getType());
+    assertSame(a1.getAttributes().iterator().next(), a2.getAttributes().iterator().next());
+
+    BratEntity t1 = BratEntity.parseEntity("T1\tRegulation 0 3\tabc");
+    BratEntity t2 = BratEntity.parseEntity("T2\tRegulation 4 7\tdef");
+    assertNotSame(t1.getType(), t2.getType());
+  }
+}
@@ -0,0 +1,25 @@
+package com.pengyifan.brat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers shared by the tests.
+ *
+ * @author "Yifan Peng"
+ * @since 1.3.0
+ */
+public final class BratTestUtils {
+
+  private BratTestUtils() {
+  }
+
+  /**
+   * Returns the annotations of the document as brat lines, in the order of the document.
+   */
+  public static List<String> toBratStrings(BratDocument doc) {
+    return doc.getAnnotations().stream()
+        .map(BratAnnotation::toBratString)
+        .collect(Collectors.toList());
+  }
+}
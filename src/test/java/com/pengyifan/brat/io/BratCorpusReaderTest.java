@@ -0,0 +1,110 @@
+package com.pengyifan.brat.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratIllegalFormatException;
+
+public class BratCorpusReaderTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private Path root;
+
+  @Before
+  public void setUp()
+      throws IOException {
+    root = temporaryFolder.getRoot().toPath();
+    Path sub = Files.createDirectories(root.resolve("sub"));
+    write(root.resolve("doc1.ann"), "T1\tProtein 0 4\tSony\n");
+    write(root.resolve("doc1.txt"), "Sony is a company.");
+    write(sub.resolve("doc2.ann"), "T1\tProtein 0 3\tIBM\nT2\tProtein 4 7\tIBM\n");
+    write(sub.resolve("doc3.txt"), "No annotation.");
+  }
+
+  @Test
+  public void testReadDocument()
+      throws IOException {
+    BratDocument doc = BratCorpusReader.readDocument(root.resolve("doc1.ann"));
+    assertEquals("doc1", doc.getDocId());
+    assertEquals("Sony is a company.", doc.getText());
+    assertEquals(1, doc.getEntities().size());
+
+    doc = BratCorpusReader.readDocument(root.resolve("sub/doc2.ann"));
+    assertEquals("doc2", doc.getDocId());
+    assertNull(doc.getText());
+    assertEquals(2, doc.getEntities().size());
+  }
+
+  @Test
+  public void testRead()
+      throws IOException {
+    Map<String, BratDocument> docs = Collections.synchronizedMap(Maps.newHashMap());
+    new BratCorpusReader(root).read(doc -> docs.put(doc.getDocId(), doc));
+    assertEquals(2, docs.size());
+    assertEquals("Sony is a company.", docs.get("doc1").getText());
+    assertEquals(2, docs.get("doc2").getEntities().size());
+  }
+
+  @Test
+  public void testReadBounded()
+      throws IOException {
+    for (int i = 0; i < 20; i++) {
+      write(root.resolve("more" + i + ".ann"), "T1\tProtein 0 4\tSony\n");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    List<String> docIds = Collections.synchronizedList(Lists.newArrayList());
+    try {
+      new BratCorpusReader(root, executor, 2).read(doc -> {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        docIds.add(doc.getDocId());
+        inFlight.decrementAndGet();
+      });
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(22, docIds.size());
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  public void testReadIllegalFile()
+      throws IOException {
+    write(root.resolve("sub/illegal.ann"), "T1\tProtein 0\n");
+    thrown.expect(BratIllegalFormatException.class);
+    new BratCorpusReader(root).read(doc -> {
+    });
+  }
+
+  private static void write(Path file, String content)
+      throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
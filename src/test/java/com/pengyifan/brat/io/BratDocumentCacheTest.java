@@ -0,0 +1,128 @@
+package com.pengyifan.brat.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.cache.CacheStats;
+import com.pengyifan.brat.BratDocument;
+
+public class BratDocumentCacheTest {
+
+  private static final String CONTENT = "T1\tProtein 0 4\tBMP6\n"
+      + "T2\tProtein 10 13\tId1\n"
+      + "R1\tPPI Arg1:T1 Arg2:T2\n";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testRead()
+      throws IOException {
+    Path file = write("doc.ann", CONTENT);
+    BratDocumentCache cache = new BratDocumentCache(1000);
+
+    BratDocument doc1 = cache.read(file, "doc");
+    BratDocument doc2 = cache.read(file.getParent().resolve("../" + file.getParent()
+        .getFileName() + "/doc.ann"), "doc2");
+    assertNotSame(doc1, doc2);
+    assertEquals("doc", doc1.getDocId());
+    assertEquals("doc2", doc2.getDocId());
+    assertEquals(doc1.getAnnotations(), doc2.getAnnotations());
+    assertNotSame(doc1.getEntity("T1"), doc2.getEntity("T1"));
+    assertEquals(1, cache.size());
+
+    // callers cannot change the cached document
+    doc1.removeAnnotation(doc1.getEntity("T1"));
+    doc2.getEntity("T2").setText("changed");
+    BratDocument doc3 = cache.read(file, "doc");
+    assertTrue(doc3.containsId("T1"));
+    assertEquals("Id1", doc3.getEntity("T2").getText());
+
+    CacheStats stats = cache.stats();
+    assertEquals(2, stats.hitCount());
+    assertEquals(1, stats.missCount());
+    assertEquals(1, stats.loadSuccessCount());
+  }
+
+  @Test
+  public void testModified()
+      throws IOException {
+    Path file = write("doc.ann", CONTENT);
+    BratDocumentCache cache = new BratDocumentCache(1000);
+    assertEquals(2, cache.read(file, "doc").getEntities().size());
+
+    // same size, different time
+    Files.write(file, CONTENT.replace("BMP6", "BMP7").getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+    assertEquals("BMP7", cache.read(file, "doc").getEntity("T1").getText());
+
+    // same time, different size
+    Files.write(file, (CONTENT + "T3\tProtein 20 23\tId2\n").getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+    assertEquals(3, cache.read(file, "doc").getEntities().size());
+
+    assertEquals(0, cache.stats().hitCount());
+    assertEquals(3, cache.stats().missCount());
+    assertEquals(1, cache.size());
+
+    cache.invalidate(file);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEviction()
+      throws IOException {
+    BratDocumentCache cache = new BratDocumentCache(100);
+    for (int i = 0; i < 100; i++) {
+      cache.read(write("doc" + i + ".ann", CONTENT), "doc" + i);
+    }
+    assertTrue(cache.size() <= 25);
+    assertTrue(cache.stats().evictionCount() >= 75);
+  }
+
+  @Test
+  public void testMissingFile()
+      throws IOException {
+    BratDocumentCache cache = new BratDocumentCache(100);
+    thrown.expect(IOException.class);
+    cache.read(temporaryFolder.getRoot().toPath().resolve("missing.ann"), "missing");
+  }
+
+  @Test
+  public void testIllegalFile()
+      throws IOException {
+    BratDocumentCache cache = new BratDocumentCache(100);
+    Path file = write("bad.ann", "x\n");
+    try {
+      cache.read(file, "bad");
+    } catch (IllegalArgumentException e) {
+      assertEquals(1, cache.stats().loadExceptionCount());
+      assertEquals(0, cache.size());
+      return;
+    }
+    fail("expected an exception");
+  }
+
+  private Path write(String fileName, String content)
+      throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve(fileName);
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
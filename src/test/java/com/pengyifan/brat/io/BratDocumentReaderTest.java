@@ -1,6 +1,13 @@
 package com.pengyifan.brat.io;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
 import com.pengyifan.brat.BratIllegalFormatException;
+import com.pengyifan.brat.BratSymbolTable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -9,7 +16,13 @@ import java.io.StringReader;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.*;
 
 public class BratDocumentReaderTest {
@@ -26,6 +39,86 @@ public class BratDocumentReaderTest {
     r.close();
   }
 
+  @Test
+  public void testSymbolTable() throws Exception {
+    BratSymbolTable symbols = new BratSymbolTable();
+    List<BratDocument> docs = Lists.newArrayList();
+    for (int i = 0; i < 2; i++) {
+      BratDocumentReader r = new BratDocumentReader(
+          new StringReader("T1\tProtein 0 3\tabc\nR1\tPPI Arg1:T1 Arg2:T1"));
+      r.setSymbolTable(symbols);
+      docs.add(i == 0 ? r.read() : r.readParallel());
+    }
+    assertSame(docs.get(0).getEntity("T1").getType(), docs.get(1).getEntity("T1").getType());
+    assertSame(docs.get(0).getRelation("R1").getType(), docs.get(1).getRelation("R1").getType());
+    assertEquals(4, symbols.size());
+  }
+
+  @Test
+  public void testSharedEntityText() throws Exception {
+    BratDocumentReader r = new BratDocumentReader(
+        new StringReader("T1\tProtein 4 7\tabc\nT2\tProtein 0 3\tabc"), "doc", "xyz abc");
+    r.setSharedEntityText(true);
+    BratDocument doc = r.read();
+    assertFalse(doc.getEntity("T1").getTextView() instanceof String);
+    assertEquals("abc", doc.getEntity("T1").getText());
+    assertEquals("abc", doc.getEntity("T2").getTextView());
+  }
+
+  @Test
+  public void testLenient() throws Exception {
+    String content = "T1\tProtein 0 3\tabc\n\nx\nT1\tProtein 4 7\tdef\n"
+        + "R1\tPPI Arg1:T1\tArg2:T1\nT2\tProtein 4 7\tdef\n";
+    for (int i = 0; i < 2; i++) {
+      BratDocumentReader r = new BratDocumentReader(new StringReader(content));
+      r.setLenient(true);
+      r.setMaxDiagnostics(2);
+      BratDocument doc = i == 0 ? r.read() : r.readParallel();
+      assertEquals(2, doc.getEntities().size());
+      assertEquals(3, r.getSkippedLineCount());
+      assertEquals(2, r.getDiagnostics().size());
+      assertEquals(new BratDiagnostic(3, "x", "Cannot parse line: x"), r.getDiagnostics().get(0));
+      assertEquals(new BratDiagnostic(4, "T1\tProtein 4 7\tdef", "already have T1"),
+          r.getDiagnostics().get(1));
+    }
+
+    BratDocumentReader r = new BratDocumentReader(new StringReader(content));
+    r.setLenient(true);
+    assertEquals(3, Iterators.size(r.iterator()));
+    assertEquals(2, r.getSkippedLineCount());
+  }
+
+  @Test
+  public void testLenientInvalidArgument() throws Exception {
+    String content = "T1\tProtein 0 3\tabc\nT2\tProtein 5 3\tx\n*\tEquiv T1 T1\n"
+        + "T3\tProtein 4 7\tdef\n";
+    for (int i = 0; i < 3; i++) {
+      BratDocumentReader r = new BratDocumentReader(new StringReader(content));
+      r.setLenient(true);
+      if (i == 0) {
+        assertEquals(2, r.read().getEntities().size());
+      } else if (i == 1) {
+        assertEquals(2, r.readParallel().getEntities().size());
+      } else {
+        assertEquals(2, Iterators.size(r.iterator()));
+      }
+      assertEquals(2, r.getSkippedLineCount());
+      assertEquals(new BratDiagnostic(2, "T2\tProtein 5 3\tx", "Invalid span: 5 3"),
+          r.getDiagnostics().get(0));
+      assertEquals(new BratDiagnostic(3, "*\tEquiv T1 T1", "Duplicated arg: T1"),
+          r.getDiagnostics().get(1));
+    }
+  }
+
+  @Test
+  public void testStrictLineNumber() throws Exception {
+    BratDocumentReader r = new BratDocumentReader(
+        new StringReader("T1\tProtein 0 3\tabc\n\nT1\tProtein 4 7\tdef"));
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Line 3: already have T1");
+    r.read();
+  }
+
   @Test
   public void testEmptyFile() throws Exception {
     BratDocumentReader r = new BratDocumentReader(new StringReader(""));
@@ -37,7 +130,131 @@ public class BratDocumentReaderTest {
   public void testIllegalFile() throws Exception {
     BratDocumentReader r = new BratDocumentReader(new StringReader("x"));
     thrown.expect(BratIllegalFormatException.class);
+    thrown.expectMessage("Line 1: Cannot parse line: x");
+    thrown.expectCause(instanceOf(BratIllegalFormatException.class));
     r.read();
     r.close();
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testInvalidArgument() throws Exception {
+    List<String> errors = Lists.newArrayList();
+    BratDocumentReader r = new BratDocumentReader(new StringReader("T2\tProtein 5 3\tx"));
+    r.read(new BratAnnotationHandler() {
+      @Override
+      public void onError(int lineNumber, String line, BratIllegalFormatException e) {
+        errors.add(lineNumber + ": " + e.getMessage());
+      }
+    });
+    assertEquals(Lists.newArrayList("1: Invalid span: 5 3"), errors);
+
+    r = new BratDocumentReader(new StringReader("T2\tProtein 5 3\tx"));
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Line 1: Invalid span: 5 3");
+    r.read();
+  }
+
+  @Test
+  public void testHandler() throws Exception {
+    URL url = this.getClass().getResource("/example1.ann");
+    BratDocumentReader r = new BratDocumentReader(
+        Files.newBufferedReader(Paths.get(url.toURI())), "example1.ann");
+    Map<String, Integer> counts = Maps.newTreeMap();
+    List<String> ids = Lists.newArrayList();
+    r.read(new BratAnnotationHandler() {
+      @Override
+      public void onEntity(BratEntity entity) {
+        counts.merge(entity.getType(), 1, Integer::sum);
+      }
+
+      @Override
+      public void onAnnotation(BratAnnotation annotation) {
+        ids.add(annotation.getId());
+      }
+    });
+    r.close();
+    assertEquals(6, counts.get("Protein").intValue());
+    assertEquals(1, counts.get("Gene_expression").intValue());
+    assertEquals(Lists.newArrayList("E1", "E2", "R1", "A1", "*", "#1"), ids);
+  }
+
+  @Test
+  public void testHandlerError() throws Exception {
+    BratDocumentReader r = new BratDocumentReader(
+        new StringReader("T1\tProtein 0 3\tabc\n\nx\nR1\tPPI Arg1:T1"));
+    List<Integer> lineNumbers = Lists.newArrayList();
+    List<String> ids = Lists.newArrayList();
+    r.read(new BratAnnotationHandler() {
+      @Override
+      public void onAnnotation(BratAnnotation annotation) {
+        ids.add(annotation.getId());
+      }
+
+      @Override
+      public void onError(int lineNumber, String line, BratIllegalFormatException e) {
+        lineNumbers.add(lineNumber);
+      }
+    });
+    r.close();
+    assertEquals(Lists.newArrayList(3), lineNumbers);
+    assertEquals(Lists.newArrayList("T1", "R1"), ids);
+  }
+
+  @Test
+  public void testHandlerDefaultError() throws Exception {
+    BratDocumentReader r = new BratDocumentReader(
+        new StringReader("T1\tProtein 0 3\tabc\n\nx\nR1\tPPI Arg1:T1"));
+    thrown.expect(BratIllegalFormatException.class);
+    thrown.expectMessage("Line 3: Cannot parse line: x");
+    thrown.expectCause(instanceOf(BratIllegalFormatException.class));
+    r.read(new BratAnnotationHandler() {
+    });
+  }
+
+  @Test
+  public void testAnnotations() throws Exception {
+    // the illegal last line is never parsed
+    BratDocumentReader r = new BratDocumentReader(
+        new StringReader("T1\tProtein 0 3\tabc\nA1\tNegation T1\nx"));
+    try (Stream<BratAnnotation> stream = r.annotations()) {
+      assertTrue(stream.anyMatch(a -> a.getType().equals("Negation")));
+    }
+  }
+
+  @Test
+  public void testIterator() throws Exception {
+    URL url = this.getClass().getResource("/example1.ann");
+    BratDocumentReader r = new BratDocumentReader(
+        Files.newBufferedReader(Paths.get(url.toURI())), "example1.ann");
+    Iterator<BratAnnotation> itr = r.iterator();
+    assertEquals("T1", itr.next().getId());
+    assertEquals(14, Iterators.size(itr) + 1);
+    r.close();
+  }
+
+  @Test
+  public void testReadParallel() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= 5000; i++) {
+      sb.append("T").append(i).append("\tProtein ").append(i).append(' ').append(i + 3)
+          .append("\tabc\n");
+      sb.append("A").append(i).append("\tNegation T").append(i).append("\n\n");
+    }
+    BratDocument expected = new BratDocumentReader(new StringReader(sb.toString()), "id").read();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      BratDocument actual = new BratDocumentReader(new StringReader(sb.toString()), "id")
+          .readParallel(pool);
+      assertEquals(expected, actual);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testReadParallelIllegalFile() throws Exception {
+    BratDocumentReader r = new BratDocumentReader(new StringReader("T1\tProtein 0 3\tabc\nx"));
+    thrown.expect(BratIllegalFormatException.class);
+    r.readParallel();
+  }
+}
@@ -0,0 +1,34 @@
+package com.pengyifan.brat.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.pengyifan.brat.BratDocument;
+
+public class BratDocumentWriterTest {
+
+  @Test
+  public void testWrite() throws Exception {
+    String longText = Strings.repeat("x", 300);
+    String content = "T1\tProtein 0 5;7 9\tBMP-6 Id\n"
+        + "T2\tProtein 10 310\t" + longText + "\n"
+        + "T3\tProtein 1000000 2147483647\ty\n"
+        + "R1\tPPI Arg1:T1 Arg2:T2\n"
+        + "E1\tGene_expression:T2 Theme:T1\n"
+        + "A1\tConfidence E1 L1\n"
+        + "*\tEquiv T1 T2\n"
+        + "#1\tAnnotatorNotes T1\tthis annotation is ünsure\n";
+    BratDocument doc = new BratDocumentReader(new StringReader(content), "id").read();
+
+    StringWriter out = new StringWriter();
+    BratDocumentWriter writer = new BratDocumentWriter(out);
+    writer.write(doc);
+    writer.close();
+    assertEquals(content, out.toString().replace(System.lineSeparator(), "\n"));
+  }
+}
@@ -0,0 +1,138 @@
+package com.pengyifan.brat.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratIllegalFormatException;
+
+public class BratMappedDocumentReaderTest {
+
+  private static final String CONTENT = "T1\tProtein 0 5;7 9\tBMP-6 Id\r\n"
+      + "T2\tProtein 10 13\t\u03b1\u03b2\u03b3\r\n"
+      + "\r\n"
+      + "E1\tGene_expression:T2 Theme:T1\r\n"
+      + "R1\tPPI Arg1:T1 Arg2:T2\r\n"
+      + "A1\tConfidence E1 L1\r\n"
+      + "*\tEquiv T1 T2\r\n"
+      + "#1\tAnnotatorNotes T1\tthis annotation is \u00fcnsure";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testFile() throws Exception {
+    URL url = this.getClass().getResource("/example1.ann");
+    Path file = Paths.get(url.toURI());
+    BratDocumentReader r = new BratDocumentReader(Files.newBufferedReader(file), "id");
+    BratDocument expected = r.read();
+    r.close();
+
+    BratMappedDocumentReader mr = new BratMappedDocumentReader(file, "id");
+    assertEquals(expected, mr.read());
+    mr.close();
+  }
+
+  @Test
+  public void testWindows() throws Exception {
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, CONTENT.getBytes(StandardCharsets.UTF_8));
+    BratDocument expected = new BratDocumentReader(new StringReader(CONTENT), "id").read();
+
+    for (int windowSize : new int[] { 64, 100, 1 << 20 }) {
+      BratMappedDocumentReader r = new BratMappedDocumentReader(file, "id", null, windowSize);
+      assertEquals(expected, r.read());
+      r.close();
+    }
+  }
+
+  @Test
+  public void testLineTerminators() throws Exception {
+    String content = "T1\tProtein 0 5\tBMP-6\rT2\tProtein 10 13\t\u03b1\u03b2\u03b3\r\r\n"
+        + "E1\tGene_expression:T2 Theme:T1\r\nR1\tPPI Arg1:T1 Arg2:T2\n\r"
+        + "x\r";
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+    BratDocumentReader expected = new BratDocumentReader(new StringReader(content), "id");
+    expected.setLenient(true);
+    BratDocument expectedDoc = expected.read();
+    assertEquals(2, expectedDoc.getEntities().size());
+    // every window size from the longest line to the whole file
+    for (int windowSize = 33; windowSize <= Files.size(file); windowSize++) {
+      BratMappedDocumentReader r = new BratMappedDocumentReader(file, "id", null, windowSize);
+      r.setLenient(true);
+      assertEquals(expectedDoc, r.read());
+      assertEquals(expected.getDiagnostics(), r.getDiagnostics());
+      r.close();
+    }
+  }
+
+  @Test
+  public void testLenient() throws Exception {
+    String content = "T1\tProtein 0 3\tabc\t\r\nx\nT1\tProtein 4 7\tdef\n"
+        + "T2\tProtein 5 3\tx\n*\tEquiv T1 T1\nT3\tProtein 4 7\tdef\n";
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+    BratDocumentReader expected = new BratDocumentReader(new StringReader(content), "id");
+    expected.setLenient(true);
+    BratMappedDocumentReader r = new BratMappedDocumentReader(file, "id");
+    r.setLenient(true);
+    r.setMaxDiagnostics(3);
+    assertEquals(expected.read(), r.read());
+    assertEquals(4, r.getSkippedLineCount());
+    assertEquals(expected.getDiagnostics().subList(0, 3), r.getDiagnostics());
+    r.close();
+  }
+
+  @Test
+  public void testSharedEntityText() throws Exception {
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, "T1\tProtein 4 7\tdef\n".getBytes(StandardCharsets.UTF_8));
+    BratMappedDocumentReader r = new BratMappedDocumentReader(file, "id", "abc def");
+    r.setSharedEntityText(true);
+    BratDocument doc = r.read();
+    r.close();
+    assertTrue(doc.isSharedEntityText());
+    assertFalse(doc.getEntity("T1").getTextView() instanceof String);
+    assertEquals("def", doc.getEntity("T1").getText());
+  }
+
+  @Test
+  public void testIllegalFile() throws Exception {
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, "T1\tProtein 0 5\tBMP-6\nx\n".getBytes(StandardCharsets.UTF_8));
+    BratMappedDocumentReader r = new BratMappedDocumentReader(file);
+    thrown.expect(BratIllegalFormatException.class);
+    thrown.expectMessage("Cannot parse line: x");
+    r.read();
+  }
+
+  @Test
+  public void testHandlerDefaultError() throws Exception {
+    Path file = temporaryFolder.newFile("test.ann").toPath();
+    Files.write(file, "T1\tProtein 0 5\tBMP-6\nx\n".getBytes(StandardCharsets.UTF_8));
+    BratMappedDocumentReader r = new BratMappedDocumentReader(file);
+    thrown.expect(BratIllegalFormatException.class);
+    thrown.expectMessage("Line 2: Cannot parse line: x");
+    r.read(new BratAnnotationHandler() {
+    });
+  }
+}
@@ -0,0 +1,148 @@
+package com.pengyifan.brat.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+
+public class BratPipelineTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private static final List<Integer> NUMBERS = IntStream.range(0, 200).boxed()
+      .collect(Collectors.toList());
+
+  @Test
+  public void testOrdered()
+      throws IOException {
+    List<Integer> actual = Lists.newArrayList();
+    BratPipeline pipeline = BratPipeline.from(NUMBERS)
+        .stage("sleep", 4, BratPipelineTest::sleep)
+        .stage("double", 2, i -> i * 2)
+        .queueCapacity(2)
+        .maxInFlight(8)
+        .to(actual::add);
+    pipeline.run();
+    assertEquals(NUMBERS.stream().map(i -> i * 2).collect(Collectors.toList()), actual);
+
+    List<BratPipeline.Counter> counters = pipeline.getCounters();
+    assertEquals(4, counters.size());
+    assertEquals("source", counters.get(0).getName());
+    assertEquals("sleep", counters.get(1).getName());
+    assertEquals("sink", counters.get(3).getName());
+    counters.forEach(c -> assertEquals(200, c.getCount()));
+  }
+
+  @Test
+  public void testUnordered()
+      throws IOException {
+    List<Integer> actual = Lists.newArrayList();
+    BratPipeline.from(NUMBERS)
+        .stage("sleep", 4, BratPipelineTest::sleep)
+        .stage("odd", 2, i -> i % 2 == 1 ? i : null)
+        .ordered(false)
+        .to(actual::add)
+        .run();
+    actual.sort(Integer::compare);
+    assertEquals(NUMBERS.stream().filter(i -> i % 2 == 1).collect(Collectors.toList()), actual);
+  }
+
+  @Test
+  public void testMaxInFlight()
+      throws IOException {
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    BratPipeline.from(NUMBERS)
+        .stage("count", 4, i -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          return i;
+        })
+        .maxInFlight(3)
+        .to(i -> inFlight.decrementAndGet())
+        .run();
+    assertTrue(maxInFlight.get() <= 3);
+  }
+
+  @Test
+  public void testError()
+      throws IOException {
+    thrown.expect(IOException.class);
+    thrown.expectMessage("42");
+    BratPipeline.from(NUMBERS)
+        .stage("fail", 2, i -> {
+          if (i == 42) {
+            throw new IOException("42");
+          }
+          return i;
+        })
+        .to(i -> {
+        })
+        .run();
+  }
+
+  @Test
+  public void testCorpus()
+      throws IOException {
+    Path input = temporaryFolder.newFolder("input").toPath();
+    Path output = temporaryFolder.newFolder("output").toPath();
+    for (int i = 0; i < 10; i++) {
+      Files.write(input.resolve("doc" + i + ".ann"),
+          "T1\tProtein 0 4\tSony\n".getBytes(StandardCharsets.UTF_8));
+      Files.write(input.resolve("doc" + i + ".txt"),
+          "Sony".getBytes(StandardCharsets.UTF_8));
+    }
+
+    try (Stream<Path> files = BratCorpusReader.annFiles(input)) {
+      BratPipeline.from(files.iterator())
+          .stage("read", 2, BratCorpusReader::readDocument)
+          .stage("shift", 2, BratPipelineTest::shift)
+          .to(BratPipeline.writeTo(output))
+          .run();
+    }
+
+    for (int i = 0; i < 10; i++) {
+      BratDocument doc = BratCorpusReader.readDocument(output.resolve("doc" + i + ".ann"));
+      assertEquals("Sony", doc.getText());
+      assertEquals(10, doc.getEntity("T1").beginPosition());
+    }
+  }
+
+  private static BratDocument shift(BratDocument doc) {
+    BratDocument shifted = new BratDocument();
+    shifted.setDocId(doc.getDocId());
+    shifted.setText(doc.getText());
+    doc.getEntities().forEach(e -> shifted.addAnnotation(BratEntity.shift(e, 10)));
+    return shifted;
+  }
+
+  private static Integer sleep(Integer i)
+      throws IOException {
+    try {
+      Thread.sleep(i % 3);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+    return i;
+  }
+}
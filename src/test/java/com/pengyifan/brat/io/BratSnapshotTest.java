@@ -0,0 +1,97 @@
+package com.pengyifan.brat.io;
+
+import static com.pengyifan.brat.BratTestUtils.toBratStrings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+
+public class BratSnapshotTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private BratDocument base;
+
+  @Before
+  public void setUp()
+      throws Exception {
+    URL url = this.getClass().getResource("/example1.ann");
+    base = BratIOUtils.read(Paths.get(url.toURI()), "example1");
+    base.setText("BMP-6 \u00e9t\u00e9");
+  }
+
+  @Test
+  public void testRoundTrip()
+      throws IOException {
+    BratDocument empty = new BratDocument();
+
+    BratDocument large = new BratDocument();
+    large.setDocId("large");
+    for (int i = 0; i < 1000; i++) {
+      BratEntity entity = new BratEntity();
+      entity.setId("T" + i);
+      entity.setType("Protein");
+      entity.addSpan(i * 100000, i * 100000 + 5);
+      entity.addSpan(i * 100000 + 10, i * 100000 + 15);
+      entity.setText("BMP-6 " + i);
+      large.addAnnotation(entity);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BratSnapshotWriter writer = new BratSnapshotWriter(out)) {
+      writer.write(base);
+      writer.write(empty);
+      writer.write(large);
+    }
+
+    try (BratSnapshotReader reader =
+        new BratSnapshotReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertDoc(base, reader.read());
+      assertDoc(empty, reader.read());
+      assertDoc(large, reader.read());
+      assertNull(reader.read());
+    }
+  }
+
+  @Test
+  public void testIllegalHeader()
+      throws IOException {
+    thrown.expect(IOException.class);
+    thrown.expectMessage("Not a brat snapshot");
+    new BratSnapshotReader(new ByteArrayInputStream("T1\tProtein".getBytes("UTF-8")));
+  }
+
+  @Test
+  public void testTruncated()
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BratSnapshotWriter writer = new BratSnapshotWriter(out)) {
+      writer.write(base);
+    }
+    byte[] bytes = out.toByteArray();
+    BratSnapshotReader reader =
+        new BratSnapshotReader(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+    thrown.expect(IOException.class);
+    reader.read();
+  }
+
+  private static void assertDoc(BratDocument expected, BratDocument actual) {
+    assertEquals(expected.getDocId(), actual.getDocId());
+    assertEquals(expected.getText(), actual.getText());
+    assertEquals(toBratStrings(expected), toBratStrings(actual));
+    assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,70 @@
+package com.pengyifan.brat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratEntity;
+
+public class BratEntityLookupTest {
+
+  @Test
+  public void testGet() {
+    BratEntity t1 = createEntity("T1", 0, 5);
+    BratEntity t2 = createEntity("T2", 10, 12, 20, 25);
+    BratEntity t3 = createEntity("T3", 10, 25);
+    BratEntityLookup lookup = new BratEntityLookup(
+        Lists.newArrayList(t1, t2, t3, new BratEntity()));
+
+    assertEquals(3, lookup.size());
+    assertSame(t1, lookup.get(0, 5));
+    assertSame(t2, lookup.get(10, 25));
+    assertEquals(Lists.newArrayList(t2, t3), lookup.getAll(10, 25));
+    assertNull(lookup.get(10, 12));
+    assertTrue(lookup.getAll(0, 4).isEmpty());
+    assertTrue(lookup.contains(0, 5));
+    assertFalse(lookup.contains(5, 0));
+  }
+
+  @Test
+  public void testRandom() {
+    Random random = new Random(0);
+    List<BratEntity> entities = Lists.newArrayList();
+    for (int i = 0; i < 1000; i++) {
+      int begin = random.nextInt(1000);
+      entities.add(createEntity("T" + i, begin, begin + 1 + random.nextInt(10)));
+    }
+    BratEntityLookup lookup = new BratEntityLookup(entities);
+    for (int begin = 0; begin < 1000; begin++) {
+      for (int end = begin + 1; end <= begin + 12; end++) {
+        int b = begin;
+        int e = end;
+        List<BratEntity> expected = entities.stream()
+            .filter(entity -> entity.beginPosition() == b && entity.endPosition() == e)
+            .collect(Collectors.toList());
+        assertEquals(expected, lookup.getAll(begin, end));
+        assertEquals(BratUtils.getEnity(entities, begin, end).orElse(null),
+            lookup.get(begin, end));
+      }
+    }
+  }
+
+  private static BratEntity createEntity(String id, int... offsets) {
+    BratEntity entity = new BratEntity();
+    entity.setId(id);
+    entity.setType("Protein");
+    for (int i = 0; i < offsets.length; i += 2) {
+      entity.addSpan(offsets[i], offsets[i + 1]);
+    }
+    return entity;
+  }
+}
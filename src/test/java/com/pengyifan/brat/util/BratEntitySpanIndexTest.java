@@ -0,0 +1,105 @@
+package com.pengyifan.brat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratEntity;
+
+public class BratEntitySpanIndexTest {
+
+  private BratEntitySpanIndex index;
+
+  @Before
+  public void setUp() {
+    index = new BratEntitySpanIndex();
+    index.add(createEntity("T1", 0, 5));
+    index.add(createEntity("T2", 3, 8));
+    index.add(createEntity("T3", 10, 12, 20, 25));
+    index.add(createEntity("T4", 21, 22));
+  }
+
+  @Test
+  public void testGetEntitiesAt() {
+    assertEquals(ids("T1", "T2"), ids(index.getEntitiesAt(4)));
+    assertEquals(ids("T2"), ids(index.getEntitiesAt(5)));
+    assertTrue(index.getEntitiesAt(15).isEmpty());
+    assertEquals(ids("T3", "T4"), ids(index.getEntitiesAt(21)));
+  }
+
+  @Test
+  public void testGetOverlapping() {
+    assertEquals(ids("T1", "T2"), ids(index.getOverlapping(0, 10)));
+    assertTrue(index.getOverlapping(12, 20).isEmpty());
+    assertEquals(ids("T3", "T4"), ids(index.getOverlapping(11, 30)));
+  }
+
+  @Test
+  public void testGetEnclosed() {
+    assertEquals(ids("T1"), ids(index.getEnclosed(0, 6)));
+    assertEquals(ids("T3", "T4"), ids(index.getEnclosed(10, 25)));
+    assertEquals(ids("T4"), ids(index.getEnclosed(12, 25)));
+  }
+
+  @Test
+  public void testGetEnclosing() {
+    assertEquals(ids("T1", "T2"), ids(index.getEnclosing(3, 5)));
+    assertEquals(ids("T3"), ids(index.getEnclosing(20, 21)));
+    assertTrue(index.getEnclosing(11, 21).isEmpty());
+  }
+
+  @Test
+  public void testGetExact() {
+    assertEquals(ids("T3"), ids(index.getExact(10, 25)));
+    assertTrue(index.getExact(10, 12).isEmpty());
+
+    index.add(createEntity("T5", 10, 25));
+    assertEquals(ids("T3", "T5"), ids(index.getExact(10, 25)));
+  }
+
+  @Test
+  public void testRandom() {
+    Random random = new Random(0);
+    List<BratEntity> entities = Lists.newArrayList();
+    index = new BratEntitySpanIndex();
+    for (int i = 0; i < 500; i++) {
+      int begin = random.nextInt(1000);
+      BratEntity entity = createEntity("T" + i, begin, begin + 1 + random.nextInt(30));
+      entities.add(entity);
+      index.add(entity);
+    }
+    for (int i = 0; i < 100; i++) {
+      int begin = random.nextInt(1000);
+      int end = begin + 1 + random.nextInt(50);
+      List<BratEntity> expected = entities.stream()
+          .filter(e -> e.beginPosition() < end && e.endPosition() > begin)
+          .collect(Collectors.toList());
+      assertEquals(expected, index.getOverlapping(begin, end));
+    }
+  }
+
+  private static List<String> ids(String... ids) {
+    return Lists.newArrayList(ids);
+  }
+
+  private static List<String> ids(List<BratEntity> entities) {
+    return entities.stream().map(BratEntity::getId).collect(Collectors.toList());
+  }
+
+  private static BratEntity createEntity(String id, int... offsets) {
+    BratEntity entity = new BratEntity();
+    entity.setId(id);
+    entity.setType("Protein");
+    for (int i = 0; i < offsets.length; i += 2) {
+      entity.addSpan(offsets[i], offsets[i + 1]);
+    }
+    return entity;
+  }
+}
@@ -0,0 +1,214 @@
+package com.pengyifan.brat.util;
+
+import static com.pengyifan.brat.BratTestUtils.toBratStrings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.io.BratIOUtils;
+
+public class BratMergeTest {
+
+  private static final String DOC_1 = "T1\tProtein 0 4\tBMP6\n"
+      + "T2\tProtein 10 13\tId1\n"
+      + "T3\tRegulation 5 9\tlead\n"
+      + "E1\tRegulation:T3 Theme:T1 Cause:T2\n"
+      + "R1\tPPI Arg1:T1 Arg2:T2\n"
+      + "*\tEquiv T1 T2\n"
+      + "#1\tAnnotatorNotes T1\tsuspect\n";
+
+  private static final String DOC_2 = "T5\tGene 10 13\tId1\n"
+      + "T6\tProtein 0 4\tBMP6\n"
+      + "T7\tProtein 20 24\tCD40\n"
+      + "T8\tRegulation 5 9\tlead\n"
+      + "E3\tRegulation:T8 Theme:T6 Cause:T5\n"
+      + "E4\tRegulation:T8 Theme:T7\n"
+      + "R2\tPPI Arg1:T6 Arg2:T5\n"
+      + "R3\tPPI Arg1:T5 Arg2:T6\n"
+      + "*\tEquiv T5 T7\n"
+      + "#2\tAnnotatorNotes T6\tsuspect\n"
+      + "#3\tAnnotatorNotes T6\tfine\n";
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testAddDocument()
+      throws IOException {
+    BratMerge merge = new BratMerge();
+    merge.addDocument(read(DOC_1));
+    merge.addDocument(read(DOC_2));
+    BratDocument doc = merge.getDoc();
+
+    assertEquals(4, doc.getEntities().size());
+    assertEquals("T0", doc.getEntities().get(0).getId());
+    assertEquals("T3", doc.getEntities().get(3).getId());
+    assertEquals(20, doc.getEntity("T3").beginPosition());
+
+    assertEquals(2, doc.getEvents().size());
+    BratEvent event = doc.getEvent("E1");
+    assertEquals("T2", event.getTriggerId());
+    assertEquals("T3", event.getArgId("Theme"));
+
+    assertEquals(2, doc.getRelations().size());
+    assertEquals("T1", doc.getRelation("R1").getArgId("Arg1"));
+
+    assertEquals(1, doc.getEquivRelations().size());
+    // T1 = T2 in DOC_1 and T5 = T7 in DOC_2 share the entity at 10-13
+    assertEquals(Sets.newHashSet("T0", "T1", "T3"), doc.getEquivRelations().get(0).getArgIds());
+    assertTrue(doc.isEquivalent("T0", "T3"));
+
+    assertEquals(2, doc.getNotes().size());
+    assertEquals(2, doc.getNotes("T0").size());
+  }
+
+  @Test
+  public void testAddDocuments()
+      throws IOException {
+    List<BratDocument> docs = Lists.newArrayList();
+    for (int i = 0; i < 10; i++) {
+      docs.add(read(i % 2 == 0 ? DOC_1 : DOC_2));
+    }
+    BratMerge expected = new BratMerge();
+    docs.forEach(expected::addDocument);
+
+    BratMerge actual = new BratMerge();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      actual.addDocuments(docs, pool);
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(toBratStrings(expected.getDoc()), toBratStrings(actual.getDoc()));
+
+    BratDocument doc = actual.getDoc();
+    assertEquals(ImmutableListMultimap.of(1, "T7", 3, "T7", 5, "T7", 7, "T7", 9, "T7"),
+        actual.getSources(doc.getEntity("T3")));
+    assertEquals(Lists.newArrayList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9),
+        Lists.newArrayList(actual.getSources(doc.getEvent("E0")).keySet()));
+    assertEquals(Lists.newArrayList("#2"), actual.getSources(doc.getNotes().get(0)).get(9));
+    assertEquals(Lists.newArrayList("#3"), actual.getSources(doc.getNotes().get(1)).get(9));
+    assertTrue(actual.getSources(new BratEntity()).isEmpty());
+  }
+
+  @Test
+  public void testEquivRelations()
+      throws IOException {
+    String entities = "T1\tProtein 0 4\tBMP6\n"
+        + "T2\tProtein 10 13\tId1\n"
+        + "T3\tProtein 20 24\tCD40\n"
+        + "T4\tProtein 30 34\tCD41\n";
+    BratMerge merge = new BratMerge();
+    merge.addDocument(read(entities + "*\tEquiv T1 T2\n*\tEquiv T3 T4\n"));
+    assertEquals(2, merge.getDoc().getEquivRelations().size());
+    // overlapping equivalence relations of one document are one cluster
+    merge.addDocument(read(entities + "*\tEquiv T1 T2\n*\tEquiv T4 T1\n"));
+    BratDocument doc = merge.getDoc();
+
+    BratEquivRelation relation = Iterables.getOnlyElement(doc.getEquivRelations());
+    assertEquals(Sets.newHashSet("T0", "T1", "T2", "T3"), relation.getArgIds());
+    assertEquals(ImmutableListMultimap.of(0, "*", 0, "*", 1, "*", 1, "*"),
+        merge.getSources(relation));
+
+    // already contained
+    merge.addDocument(read(entities + "*\tEquiv T2 T3\n"));
+    assertSame(relation, Iterables.getOnlyElement(doc.getEquivRelations()));
+  }
+
+  @Test
+  public void testEmptyEquivRelation()
+      throws IOException {
+    BratDocument doc = read(DOC_1);
+    doc.addAnnotation(new BratEquivRelation());
+    BratMerge merge = new BratMerge();
+    try {
+      merge.addDocument(doc);
+      fail("the equivalence relation has no entity");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Equivalence relation has no entity"));
+    }
+    assertTrue(merge.getDoc().getAnnotations().isEmpty());
+  }
+
+  @Test
+  public void testNested()
+      throws IOException {
+    BratMerge merge = new BratMerge();
+    // E2 refers to E1 before it
+    merge.addDocument(read(DOC_1 + "E2\tRegulation:T3 Theme:E1\n"
+        + "R2\tCause Arg1:E2 Arg2:T2\n"));
+    merge.addDocument(read("T1\tProtein 0 4\tBMP6\n"
+        + "T2\tProtein 10 13\tId1\n"
+        + "T3\tRegulation 5 9\tlead\n"
+        + "R5\tCause Arg1:E5 Arg2:T2\n"
+        + "E5\tRegulation:T3 Theme:E6\n"
+        + "E6\tRegulation:T3 Theme:T1 Cause:T2\n"
+        + "E7\tRegulation:T3 Theme:E5\n"));
+    BratDocument doc = merge.getDoc();
+
+    assertEquals(3, doc.getEvents().size());
+    assertEquals("E0", doc.getEvent("E1").getArgId("Theme"));
+    assertEquals("E1", doc.getEvent("E2").getArgId("Theme"));
+    assertEquals(2, doc.getRelations().size());
+    assertEquals("E1", doc.getRelation("R1").getArgId("Arg1"));
+    assertEquals(Lists.newArrayList(0, 1),
+        Lists.newArrayList(merge.getSources(doc.getRelation("R1")).keySet()));
+  }
+
+  @Test
+  public void testCycle()
+      throws IOException {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Cyclic reference");
+    new BratMerge().addDocument(read(DOC_1 + "E2\tRegulation:T3 Theme:E3\n"
+        + "E3\tRegulation:T3 Theme:E4\n"
+        + "E4\tRegulation:T3 Theme:E2\n"));
+  }
+
+  @Test
+  public void testMissingArgument()
+      throws IOException {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("dont contain: E9");
+    new BratMerge().addDocument(read(DOC_1 + "E2\tRegulation:T3 Theme:E9\n"));
+  }
+
+  @Test
+  public void testMissingTrigger()
+      throws IOException {
+    BratMerge merge = new BratMerge();
+    List<BratDocument> docs = Lists.newArrayList(read(DOC_1),
+        read(DOC_2 + "E5\tRegulation:T9 Theme:T7\n"));
+    try {
+      merge.addDocuments(docs);
+      fail("the trigger T9 does not exist");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("dont contain: T9"));
+    }
+    // the first document is not merged either
+    assertTrue(merge.getDoc().getAnnotations().isEmpty());
+  }
+
+  private static BratDocument read(String content)
+      throws IOException {
+    return BratIOUtils.read(new StringReader(content), "doc");
+  }
+}
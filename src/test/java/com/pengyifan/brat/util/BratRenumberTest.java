@@ -0,0 +1,95 @@
+package com.pengyifan.brat.util;
+
+import static com.pengyifan.brat.BratTestUtils.toBratStrings;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratAnnotation;
+import com.pengyifan.brat.BratAttribute;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEquivRelation;
+import com.pengyifan.brat.io.BratIOUtils;
+
+public class BratRenumberTest {
+
+  private static final String DOC = "T4\tProtein 10 13\tId1\n"
+      + "#7\tAnnotatorNotes E9\tnested\n"
+      + "T2\tProtein 0 4\tBMP6\n"
+      + "T9\tRegulation 5 9\tlead\n"
+      + "E9\tRegulation:T9 Theme:E3\n"
+      + "E3\tRegulation:T9 Theme:T2 Cause:T4\n"
+      + "R5\tCause Arg1:E9 Arg2:T4\n"
+      + "*\tEquiv T4 T2\n"
+      + "M3\tNegation E3\n";
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testRenumberInPlace()
+      throws IOException {
+    BratDocument doc = read(DOC);
+    BratEntity entity = doc.getEntity("T2");
+    BratRenumber.builder()
+        .order(BratEntity.class, Comparator.comparingInt(BratEntity::beginPosition))
+        .build()
+        .renumberInPlace(doc);
+
+    assertEquals(Lists.newArrayList(
+        "T1\tProtein 0 4\tBMP6",
+        "T2\tRegulation 5 9\tlead",
+        "T3\tProtein 10 13\tId1",
+        "E1\tRegulation:T2 Theme:E2",
+        "E2\tRegulation:T2 Cause:T3 Theme:T1",
+        "R1\tCause Arg1:E1 Arg2:T3",
+        "*\tEquiv T1 T3",
+        "A1\tNegation E2",
+        "#1\tAnnotatorNotes E1\tnested"), toBratStrings(doc));
+    assertSame(entity, doc.getEntity("T1"));
+    assertEquals(3, doc.getReferrers("T3").size());
+    assertEquals(Lists.<BratAnnotation>newArrayList(doc.getAttributes().get(0)),
+        doc.getReferrers("E2").subList(1, 2));
+  }
+
+  @Test
+  public void testRenumber()
+      throws IOException {
+    BratDocument doc = read(DOC);
+    List<String> expected = toBratStrings(doc);
+    BratDocument newDoc = BratRenumber.builder()
+        .firstNumber(0)
+        .order(BratEquivRelation.class, Comparator.comparing(BratAnnotation::getType))
+        .keepIds(BratAttribute.class)
+        .build()
+        .renumber(doc);
+
+    assertEquals(expected, toBratStrings(doc));
+    assertEquals("T0", newDoc.getEntities().get(0).getId());
+    assertEquals("E1", newDoc.getEvent("E0").getArgId("Theme"));
+    assertEquals("E1", newDoc.getAttributes().get(0).getRefId());
+    assertEquals("M3", newDoc.getAttributes().get(0).getId());
+    assertEquals("E0", newDoc.getNotes().get(0).getRefId());
+  }
+
+  @Test
+  public void testKeepEquivIds() {
+    thrown.expect(IllegalArgumentException.class);
+    BratRenumber.builder().keepIds(BratEquivRelation.class);
+  }
+
+  private static BratDocument read(String content)
+      throws IOException {
+    return BratIOUtils.read(new StringReader(content), "doc");
+  }
+}
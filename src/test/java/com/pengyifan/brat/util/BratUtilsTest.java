@@ -2,13 +2,18 @@ package com.pengyifan.brat.util;
 
 import static org.junit.Assert.*;
 
+import java.net.URL;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
 
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratDocument;
 import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.BratEvent;
+import com.pengyifan.brat.io.BratIOUtils;
 import com.pengyifan.brat.util.BratUtils;
 
 
@@ -27,6 +32,23 @@ public class BratUtilsTest {
     assertEquals(2, collection.size());
   }
 
+  @Test
+  public void testReorderEntityByOffset()
+      throws Exception {
+    URL url = this.getClass().getResource("/example1.ann");
+    BratDocument doc = BratIOUtils.read(Paths.get(url.toURI()), "example1");
+    BratDocument newDoc = BratUtils.reorderEntityByOffset(doc);
+
+    assertEquals("T0", newDoc.getEntities().get(0).getId());
+    assertEquals(48, newDoc.getEntity("T0").beginPosition());
+    assertEquals(135, newDoc.getEntity("T1").beginPosition());
+    BratEvent event = newDoc.getEvent("E1");
+    assertEquals("T1", event.getTriggerId());
+    assertEquals("E2", event.getArgId("Theme"));
+    assertEquals("T3", newDoc.getEvent("E2").getArgId("Theme"));
+    assertEquals("T1", doc.getEntity("T1").getId());
+  }
+
   private BratEntity createEntity(final String id, final String type) {
     BratEntity ent = new BratEntity();
     ent.setId(id);
@@ -0,0 +1,120 @@
+package com.pengyifan.brat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.pengyifan.brat.BratDocument;
+import com.pengyifan.brat.BratEntity;
+import com.pengyifan.brat.io.BratIOUtils;
+import com.pengyifan.brat.util.BratValidator.Kind;
+import com.pengyifan.brat.util.BratValidator.Violation;
+
+public class BratValidatorTest {
+
+  private static final String TEXT = "BMP6 lead Id1 to";
+
+  private static final String VALID = "T1\tProtein 0 4\tBMP6\n"
+      + "T2\tProtein 10 13\tId1\n"
+      + "T3\tRegulation 5 9;14 16\tlead to\n"
+      + "E1\tRegulation:T3 Theme:T1 Cause:T2\n"
+      + "E2\tRegulation:T3 Theme:E1\n"
+      + "R1\tPPI Arg1:T1 Arg2:E2\n"
+      + "*\tEquiv T1 T2\n"
+      + "A1\tNegation E1\n"
+      + "#1\tAnnotatorNotes R1\tsuspect\n";
+
+  private final BratValidator validator = new BratValidator();
+
+  @Test
+  public void testValid()
+      throws IOException {
+    assertTrue(validator.validate(read(VALID, "valid", TEXT)).isEmpty());
+    assertTrue(validator.validate(read(VALID, "valid", null)).isEmpty());
+  }
+
+  @Test
+  public void testViolations()
+      throws IOException {
+    BratDocument doc = read("T1\tProtein 0 4\tBMP7\n"
+        + "T2\tProtein 10 20\tId1\n"
+        + "E1\tRegulation:E2 Theme:T1 Cause:T9\n"
+        + "E2\tRegulation:T1 Theme:E1\n"
+        + "R1\tPPI Arg1:T1 Arg2:E3\n"
+        + "*\tEquiv T1 T8\n"
+        + "A1\tNegation E5\n"
+        + "#1\tAnnotatorNotes T7\tsuspect\n", "bad", TEXT);
+    List<Violation> violations = validator.validate(doc);
+
+    assertEquals(Lists.newArrayList(
+        Kind.TEXT_MISMATCH,
+        Kind.SPAN_OUT_OF_TEXT,
+        Kind.ILLEGAL_REFERENCE,
+        Kind.MISSING_REFERENCE,
+        Kind.MISSING_REFERENCE,
+        Kind.MISSING_REFERENCE,
+        Kind.MISSING_REFERENCE,
+        Kind.MISSING_REFERENCE), kinds(violations));
+    assertEquals(Lists.newArrayList(1, 2, 3, 3, 5, 6, 7, 8),
+        violations.stream().map(Violation::getLine).collect(Collectors.toList()));
+    assertEquals(new Violation("bad", 3, "E1", Kind.MISSING_REFERENCE, "Cause T9 does not exist"),
+        violations.get(3));
+    assertEquals("*", violations.get(5).getAnnotationId());
+    assertEquals("text \"BMP7\" differs from \"BMP6\"", violations.get(0).getMessage());
+  }
+
+  @Test
+  public void testNegativeSpan()
+      throws IOException {
+    BratDocument doc = read(VALID, "negative", TEXT);
+    BratEntity entity = new BratEntity();
+    entity.setId("T4");
+    entity.setType("Protein");
+    entity.addSpan(-2, 4);
+    entity.setText("??BMP6");
+    doc.addAnnotation(entity);
+    List<Violation> violations = validator.validate(doc);
+
+    assertEquals(Lists.newArrayList(Kind.SPAN_OUT_OF_TEXT), kinds(violations));
+    assertEquals("span -2-4 is outside text of length 16", violations.get(0).getMessage());
+  }
+
+  @Test
+  public void testCorpus()
+      throws IOException {
+    List<BratDocument> docs = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      docs.add(read(i % 10 == 0 ? VALID + "A2\tNegation E9\n" : VALID, "doc" + i, TEXT));
+    }
+    List<Violation> violations = Lists.newArrayList();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      validator.validate(docs, pool, violations::add);
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(10, violations.size());
+    violations.forEach(v -> assertEquals(10, v.getLine()));
+    assertEquals(10, violations.stream().map(Violation::getDocId).distinct().count());
+  }
+
+  private static List<Kind> kinds(List<Violation> violations) {
+    return violations.stream().map(Violation::getKind).collect(Collectors.toList());
+  }
+
+  private static BratDocument read(String content, String docId, String text)
+      throws IOException {
+    BratDocument doc = BratIOUtils.read(new StringReader(content), docId);
+    doc.setText(text);
+    return doc;
+  }
+}